@@ -0,0 +1,58 @@
+package io.datajek.spring.benchmark;
+
+import io.datajek.spring.DiscountService;
+import io.datajek.spring.EcommerceApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+// Cost of resolving DiscountService from the context on every call versus holding the injected bean
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class BeanLookupBenchmark {
+
+    private AnnotationConfigApplicationContext ctx;
+    private DiscountService injected;
+    private double price = 39.99;
+
+    @Setup
+    public void setup() {
+        ctx = new AnnotationConfigApplicationContext(EcommerceApplication.class);
+        injected = ctx.getBean(DiscountService.class);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public DiscountService getBean() {
+        return ctx.getBean(DiscountService.class);
+    }
+
+    @Benchmark
+    public double getBeanPerCall() {
+        return ctx.getBean(DiscountService.class).applyAllDiscounts(price);
+    }
+
+    @Benchmark
+    public double injected() {
+        return injected.applyAllDiscounts(price);
+    }
+}
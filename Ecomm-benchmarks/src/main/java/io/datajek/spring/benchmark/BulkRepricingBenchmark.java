@@ -0,0 +1,79 @@
+package io.datajek.spring.benchmark;
+
+import io.datajek.spring.DiscountService;
+import io.datajek.spring.EcommerceApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Whole-catalog repricing: bulk array API against a per-price loop
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class BulkRepricingBenchmark {
+
+    @Param({"1000", "100000", "5000000"})
+    private int size;
+
+    private AnnotationConfigApplicationContext ctx;
+    private DiscountService service;
+    private double[] prices, discountedPrices;
+    private long[] pricesCents, discountedCents;
+
+    @Setup
+    public void setup() {
+        ctx = new AnnotationConfigApplicationContext(EcommerceApplication.class);
+        service = ctx.getBean(DiscountService.class);
+        Random random = new Random(42);
+        prices = new double[size];
+        discountedPrices = new double[size];
+        pricesCents = new long[size];
+        discountedCents = new long[size];
+        for (int i = 0; i < size; i++) {
+            pricesCents[i] = 99 + random.nextInt(10_000);
+            prices[i] = pricesCents[i] / 100.0;
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public double[] scalarLoop() {
+        for (int i = 0; i < prices.length; i++) {
+            discountedPrices[i] = service.applyAllDiscounts(prices[i]);
+        }
+        return discountedPrices;
+    }
+
+    @Benchmark
+    public double[] bulkDouble() {
+        service.applyAllDiscounts(prices, discountedPrices);
+        return discountedPrices;
+    }
+
+    @Benchmark
+    public long[] bulkCents() {
+        service.applyAllDiscountsCents(pricesCents, discountedCents, RoundingMode.HALF_EVEN);
+        return discountedCents;
+    }
+}
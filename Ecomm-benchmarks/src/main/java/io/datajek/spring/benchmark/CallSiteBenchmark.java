@@ -0,0 +1,65 @@
+package io.datajek.spring.benchmark;
+
+import io.datajek.spring.BundleDiscountStrategy;
+import io.datajek.spring.DefaultDiscountStrategy;
+import io.datajek.spring.DiscountStrategy;
+import io.datajek.spring.MembershipDiscountStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One applyDiscount call site fed with one (monomorphic), two (bimorphic) or all three
+ * (megamorphic) strategy classes. Every shape runs in its own fork, so type profiles from one
+ * shape never leak into another.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CallSiteBenchmark {
+
+    private static final int CALLS = 1024;
+
+    @Param({"monomorphic", "bimorphic", "megamorphic"})
+    private String shape;
+
+    private DiscountStrategy[] strategies;
+    private double price = 39.99;
+
+    @Setup
+    public void setup() {
+        DiscountStrategy[] types = {
+                new DefaultDiscountStrategy(), new BundleDiscountStrategy(), new MembershipDiscountStrategy()};
+        int kinds = "monomorphic".equals(shape) ? 1 : "bimorphic".equals(shape) ? 2 : 3;
+        Random random = new Random(42);
+        strategies = new DiscountStrategy[CALLS];
+        for (int i = 0; i < CALLS; i++) {
+            strategies[i] = types[random.nextInt(kinds)];
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLS)
+    public double applyDiscount() {
+        double sum = 0;
+        for (DiscountStrategy strategy : strategies) {
+            sum += strategy.applyDiscount(price);
+        }
+        return sum;
+    }
+}
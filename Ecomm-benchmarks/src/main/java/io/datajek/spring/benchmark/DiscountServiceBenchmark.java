@@ -0,0 +1,94 @@
+package io.datajek.spring.benchmark;
+
+import io.datajek.spring.BundleDiscountStrategy;
+import io.datajek.spring.DefaultDiscountStrategy;
+import io.datajek.spring.DiscountService;
+import io.datajek.spring.DiscountStrategy;
+import io.datajek.spring.EcommerceApplication;
+import io.datajek.spring.MembershipDiscountStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.math.RoundingMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Single-price cost of DiscountService and of each strategy on its own
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Benchmark)
+public class DiscountServiceBenchmark {
+
+    private AnnotationConfigApplicationContext ctx;
+    private DiscountService service;
+    private DiscountStrategy defaultStrategy, bundleStrategy, membershipStrategy;
+    private List<DiscountStrategy> chain;
+
+    // Non-final so the JIT cannot constant-fold the price
+    private double price = 39.99;
+    private long priceCents = 3999;
+
+    @Setup
+    public void setup() {
+        ctx = new AnnotationConfigApplicationContext(EcommerceApplication.class);
+        service = ctx.getBean(DiscountService.class);
+        defaultStrategy = ctx.getBean(DefaultDiscountStrategy.class);
+        bundleStrategy = ctx.getBean(BundleDiscountStrategy.class);
+        membershipStrategy = ctx.getBean(MembershipDiscountStrategy.class);
+        chain = Arrays.asList(defaultStrategy, bundleStrategy, membershipStrategy);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public double applyAllDiscounts() {
+        return service.applyAllDiscounts(price);
+    }
+
+    @Benchmark
+    public long applyAllDiscountsCents() {
+        return service.applyAllDiscountsCents(priceCents, RoundingMode.HALF_EVEN);
+    }
+
+    // The uncompiled chain: one interface call per strategy, as applyAllDiscounts used to do
+    @Benchmark
+    public double strategyLoop() {
+        double discountedPrice = price;
+        for (DiscountStrategy strategy : chain) {
+            discountedPrice = strategy.applyDiscount(discountedPrice);
+        }
+        return discountedPrice;
+    }
+
+    @Benchmark
+    public double defaultStrategy() {
+        return defaultStrategy.applyDiscount(price);
+    }
+
+    @Benchmark
+    public double bundleStrategy() {
+        return bundleStrategy.applyDiscount(price);
+    }
+
+    @Benchmark
+    public double membershipStrategy() {
+        return membershipStrategy.applyDiscount(price);
+    }
+}
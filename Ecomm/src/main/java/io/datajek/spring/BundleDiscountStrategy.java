@@ -3,10 +3,10 @@ package io.datajek.spring;
 import org.springframework.stereotype.Component;
 
 @Component
-public class BundleDiscountStrategy implements DiscountStrategy {
+public class BundleDiscountStrategy implements MultiplicativeDiscountStrategy {
     @Override
-    public double applyDiscount(double originalPrice) {
+    public long getFactorBasisPoints() {
         // Apply discount based on bundled purchases
-        return originalPrice * 0.9; // 10% discount
+        return 9000; // 10% discount
     }
-}
\ No newline at end of file
+}
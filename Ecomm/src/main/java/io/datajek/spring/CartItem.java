@@ -0,0 +1,52 @@
+package io.datajek.spring;
+
+public final class CartItem {
+
+    private final String title;
+    private final String author;
+    private final String category;
+    private final long unitPriceCents;
+    private final int quantity;
+
+    public CartItem(String title, String author, String category, long unitPriceCents, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be positive for " + title);
+        }
+        this.title = title;
+        this.author = author;
+        this.category = category;
+        this.unitPriceCents = unitPriceCents;
+        this.quantity = quantity;
+    }
+
+    public String getTitle() {
+        return title;
+    }
+
+    public String getAuthor() {
+        return author;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public long getUnitPriceCents() {
+        return unitPriceCents;
+    }
+
+    public int getQuantity() {
+        return quantity;
+    }
+
+    @Override
+    public String toString() {
+        return "CartItem [" +
+                "title='" + title + '\'' +
+                ", author='" + author + '\'' +
+                ", category='" + category + '\'' +
+                ", unitPriceCents=" + unitPriceCents +
+                ", quantity=" + quantity +
+                ']';
+    }
+}
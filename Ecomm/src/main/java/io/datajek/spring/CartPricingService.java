@@ -0,0 +1,90 @@
+package io.datajek.spring;
+
+import org.springframework.stereotype.Service;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Prices a cart against the currently registered promotions. Promotions are looked up through
+ * a {@link PromotionIndex} snapshot that is rebuilt and swapped on every change, so checkout
+ * never waits on promotion maintenance.
+ */
+@Service
+public class CartPricingService {
+
+    private static final Comparator<Promotion> BY_PRIORITY =
+            Comparator.comparingInt(Promotion::getPriority).thenComparing(Promotion::getId);
+
+    private volatile PromotionIndex index = PromotionIndex.EMPTY;
+
+    // Snapshot of the registered promotions, kept so single additions can rebuild the index
+    private volatile List<Promotion> promotions = new ArrayList<>();
+
+    public synchronized void replacePromotions(Collection<Promotion> newPromotions) {
+        List<Promotion> copy = new ArrayList<>(newPromotions);
+        this.index = PromotionIndex.build(copy);
+        this.promotions = copy;
+    }
+
+    public synchronized void addPromotion(Promotion promotion) {
+        List<Promotion> copy = new ArrayList<>(promotions);
+        copy.add(promotion);
+        this.index = PromotionIndex.build(copy);
+        this.promotions = copy;
+    }
+
+    public synchronized boolean removePromotion(String id) {
+        List<Promotion> copy = new ArrayList<>(promotions);
+        if (!copy.removeIf(p -> p.getId().equals(id))) {
+            return false;
+        }
+        this.index = PromotionIndex.build(copy);
+        this.promotions = copy;
+        return true;
+    }
+
+    public int getPromotionCount() {
+        return index.size();
+    }
+
+    public CartQuote priceCart(List<CartItem> items) {
+        return priceCart(items, System.currentTimeMillis(), PriceMath.DEFAULT_ROUNDING);
+    }
+
+    public CartQuote priceCart(List<CartItem> items, long epochMillis, RoundingMode roundingMode) {
+        PromotionIndex snapshot = index;
+        long[] lineTotals = new long[items.size()];
+        long listTotal = 0;
+        long total = 0;
+        List<Promotion> applicable = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            CartItem item = items.get(i);
+            applicable.clear();
+            snapshot.collectActive("*", epochMillis, applicable);
+            if (item.getCategory() != null) {
+                snapshot.collectActive(Promotion.key(Promotion.Target.CATEGORY, item.getCategory()), epochMillis, applicable);
+            }
+            if (item.getAuthor() != null) {
+                snapshot.collectActive(Promotion.key(Promotion.Target.AUTHOR, item.getAuthor()), epochMillis, applicable);
+            }
+            long unitCents = item.getUnitPriceCents();
+            if (!applicable.isEmpty()) {
+                applicable.sort(BY_PRIORITY);
+                for (Promotion promotion : applicable) {
+                    unitCents = promotion.getDiscount().applyDiscountCents(unitCents, roundingMode);
+                    if (!promotion.isStackable()) {
+                        break;
+                    }
+                }
+            }
+            lineTotals[i] = Math.multiplyExact(unitCents, (long) item.getQuantity());
+            listTotal = Math.addExact(listTotal, Math.multiplyExact(item.getUnitPriceCents(), (long) item.getQuantity()));
+            total = Math.addExact(total, lineTotals[i]);
+        }
+        return new CartQuote(new ArrayList<>(items), lineTotals, listTotal, total);
+    }
+}
@@ -0,0 +1,48 @@
+package io.datajek.spring;
+
+import java.util.Collections;
+import java.util.List;
+
+public final class CartQuote {
+
+    private final List<CartItem> items;
+    private final long[] lineTotalsCents;
+    private final long listTotalCents;
+    private final long totalCents;
+
+    CartQuote(List<CartItem> items, long[] lineTotalsCents, long listTotalCents, long totalCents) {
+        this.items = Collections.unmodifiableList(items);
+        this.lineTotalsCents = lineTotalsCents;
+        this.listTotalCents = listTotalCents;
+        this.totalCents = totalCents;
+    }
+
+    public List<CartItem> getItems() {
+        return items;
+    }
+
+    public long getLineTotalCents(int line) {
+        return lineTotalsCents[line];
+    }
+
+    public long getListTotalCents() {
+        return listTotalCents;
+    }
+
+    public long getTotalCents() {
+        return totalCents;
+    }
+
+    public long getSavingsCents() {
+        return listTotalCents - totalCents;
+    }
+
+    @Override
+    public String toString() {
+        return "CartQuote [" +
+                "items=" + items.size() +
+                ", listTotalCents=" + listTotalCents +
+                ", totalCents=" + totalCents +
+                ']';
+    }
+}
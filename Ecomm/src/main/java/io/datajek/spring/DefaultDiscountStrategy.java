@@ -3,10 +3,10 @@ package io.datajek.spring;
 import org.springframework.stereotype.Component;
 
 @Component
-public class DefaultDiscountStrategy implements DiscountStrategy {
+public class DefaultDiscountStrategy implements MultiplicativeDiscountStrategy {
     @Override
-    public double applyDiscount(double originalPrice) {
+    public long getFactorBasisPoints() {
         // Apply discount for online purchase
-        return originalPrice * 0.95; // 5% discount
+        return 9500; // 5% discount
     }
 }
@@ -0,0 +1,199 @@
+package io.datajek.spring;
+
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * An ordered chain of {@link DiscountStrategy} instances compiled into a single evaluator.
+ * Runs of {@link MultiplicativeDiscountStrategy} are folded into one exact rational factor, so a
+ * chain made only of such strategies costs one multiply-divide per price and rounds only once.
+ */
+public final class DiscountPipeline implements DiscountStrategy {
+
+    // Arrays shorter than this are priced on the calling thread
+    static final int PARALLEL_THRESHOLD = 1 << 16;
+
+    // Folded factor as a reduced fraction
+    private final long numerator;
+    private final long denominator;
+
+    // null when every strategy was folded into the factor
+    private final DiscountStrategy[] stages;
+
+    private DiscountPipeline(long numerator, long denominator, DiscountStrategy[] stages) {
+        this.numerator = numerator;
+        this.denominator = denominator;
+        this.stages = stages;
+    }
+
+    public static DiscountPipeline compile(List<? extends DiscountStrategy> strategies) {
+        List<DiscountStrategy> stages = new ArrayList<>();
+        long runNumerator = 1;
+        long runDenominator = 1;
+        boolean inRun = false;
+        for (DiscountStrategy strategy : strategies) {
+            if (strategy instanceof MultiplicativeDiscountStrategy) {
+                long factor = ((MultiplicativeDiscountStrategy) strategy).getFactorBasisPoints();
+                long n, d;
+                try {
+                    n = Math.multiplyExact(runNumerator, factor);
+                    d = Math.multiplyExact(runDenominator, MultiplicativeDiscountStrategy.BASIS_POINTS);
+                } catch (ArithmeticException overflow) {
+                    // the fraction no longer fits in a long: close this run and fold the rest into the next stage
+                    stages.add(new FixedFactor(runNumerator, runDenominator));
+                    n = factor;
+                    d = MultiplicativeDiscountStrategy.BASIS_POINTS;
+                }
+                long gcd = PriceMath.gcd(n, d);
+                runNumerator = gcd == 0 ? 0 : n / gcd;
+                runDenominator = gcd == 0 ? 1 : d / gcd;
+                inRun = true;
+            } else {
+                if (inRun) {
+                    stages.add(new FixedFactor(runNumerator, runDenominator));
+                    runNumerator = 1;
+                    runDenominator = 1;
+                    inRun = false;
+                }
+                stages.add(strategy);
+            }
+        }
+        if (stages.isEmpty()) {
+            return new DiscountPipeline(runNumerator, runDenominator, null);
+        }
+        if (inRun) {
+            stages.add(new FixedFactor(runNumerator, runDenominator));
+        }
+        return new DiscountPipeline(1, 1, stages.toArray(new DiscountStrategy[0]));
+    }
+
+    @Override
+    public long applyDiscountCents(long originalPriceCents, RoundingMode roundingMode) {
+        if (stages == null) {
+            return PriceMath.scale(originalPriceCents, numerator, denominator, roundingMode);
+        }
+        long discountedCents = originalPriceCents;
+        for (DiscountStrategy stage : stages) {
+            discountedCents = stage.applyDiscountCents(discountedCents, roundingMode);
+        }
+        return discountedCents;
+    }
+
+    // Bulk repricing: out[i] = discounted in[i], split across the common fork/join pool for large arrays
+    public void applyDiscount(double[] prices, double[] discountedPrices) {
+        checkLengths(prices.length, discountedPrices.length);
+        if (prices.length < PARALLEL_THRESHOLD) {
+            applyRange(prices, discountedPrices, 0, prices.length);
+        } else {
+            ForkJoinPool.commonPool().invoke(new BulkTask(this, prices, null, discountedPrices, null, null, 0, prices.length));
+        }
+    }
+
+    public void applyDiscountCents(long[] pricesCents, long[] discountedCents) {
+        applyDiscountCents(pricesCents, discountedCents, PriceMath.DEFAULT_ROUNDING);
+    }
+
+    // Same as above for prices in cents, rounded with the given mode
+    public void applyDiscountCents(long[] pricesCents, long[] discountedCents, RoundingMode roundingMode) {
+        checkLengths(pricesCents.length, discountedCents.length);
+        if (pricesCents.length < PARALLEL_THRESHOLD) {
+            applyRange(pricesCents, discountedCents, roundingMode, 0, pricesCents.length);
+        } else {
+            ForkJoinPool.commonPool().invoke(new BulkTask(this, null, pricesCents, null, discountedCents, roundingMode, 0, pricesCents.length));
+        }
+    }
+
+    void applyRange(double[] prices, double[] discountedPrices, int from, int to) {
+        for (int i = from; i < to; i++) {
+            discountedPrices[i] = PriceMath.toDouble(applyDiscountCents(PriceMath.toCents(prices[i]), PriceMath.DEFAULT_ROUNDING));
+        }
+    }
+
+    void applyRange(long[] pricesCents, long[] discountedCents, RoundingMode roundingMode, int from, int to) {
+        if (stages == null) {
+            long n = numerator;
+            long d = denominator;
+            for (int i = from; i < to; i++) {
+                discountedCents[i] = PriceMath.scale(pricesCents[i], n, d, roundingMode);
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                discountedCents[i] = applyDiscountCents(pricesCents[i], roundingMode);
+            }
+        }
+    }
+
+    private static void checkLengths(int in, int out) {
+        if (out < in) {
+            throw new IllegalArgumentException("Output array holds " + out + " prices, expected at least " + in);
+        }
+    }
+
+    // True when the whole chain reduced to a single factor
+    public boolean isFused() {
+        return stages == null;
+    }
+
+    public double getFactor() {
+        return numerator / (double) denominator;
+    }
+
+    public int getStageCount() {
+        return stages == null ? 1 : stages.length;
+    }
+
+    private static final class BulkTask extends RecursiveAction {
+
+        private final DiscountPipeline pipeline;
+        private final double[] doubleIn, doubleOut;
+        private final long[] centsIn, centsOut;
+        private final RoundingMode roundingMode;
+        private final int from, to;
+
+        BulkTask(DiscountPipeline pipeline, double[] doubleIn, long[] centsIn,
+                 double[] doubleOut, long[] centsOut, RoundingMode roundingMode, int from, int to) {
+            this.pipeline = pipeline;
+            this.doubleIn = doubleIn;
+            this.centsIn = centsIn;
+            this.doubleOut = doubleOut;
+            this.centsOut = centsOut;
+            this.roundingMode = roundingMode;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= PARALLEL_THRESHOLD) {
+                if (doubleIn != null) {
+                    pipeline.applyRange(doubleIn, doubleOut, from, to);
+                } else {
+                    pipeline.applyRange(centsIn, centsOut, roundingMode, from, to);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new BulkTask(pipeline, doubleIn, centsIn, doubleOut, centsOut, roundingMode, from, mid),
+                      new BulkTask(pipeline, doubleIn, centsIn, doubleOut, centsOut, roundingMode, mid, to));
+        }
+    }
+
+    private static final class FixedFactor implements DiscountStrategy {
+
+        private final long numerator;
+        private final long denominator;
+
+        FixedFactor(long numerator, long denominator) {
+            this.numerator = numerator;
+            this.denominator = denominator;
+        }
+
+        @Override
+        public long applyDiscountCents(long originalPriceCents, RoundingMode roundingMode) {
+            return PriceMath.scale(originalPriceCents, numerator, denominator, roundingMode);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package io.datajek.spring;
+
+/**
+ * One data-driven discount rule. Rules are applied in ascending {@code order}; a matching rule
+ * that is not stackable is the last one applied.
+ */
+public final class DiscountRule implements Comparable<DiscountRule> {
+
+    private final String name;
+    private final int order;
+    private final long factorBasisPoints;
+    private final long minPriceCents;
+    private final long maxPriceCents;
+    private final boolean stackable;
+
+    public DiscountRule(String name, int order, long factorBasisPoints,
+                        long minPriceCents, long maxPriceCents, boolean stackable) {
+        if (factorBasisPoints < 0) {
+            throw new IllegalArgumentException("Rule " + name + " has a negative factor: " + factorBasisPoints);
+        }
+        if (maxPriceCents < minPriceCents) {
+            throw new IllegalArgumentException("Rule " + name + " has an empty price range");
+        }
+        this.name = name;
+        this.order = order;
+        this.factorBasisPoints = factorBasisPoints;
+        this.minPriceCents = minPriceCents;
+        this.maxPriceCents = maxPriceCents;
+        this.stackable = stackable;
+    }
+
+    // Price range is inclusive on both ends and is checked against the list price
+    public boolean matches(long priceCents) {
+        return priceCents >= minPriceCents && priceCents <= maxPriceCents;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    public long getFactorBasisPoints() {
+        return factorBasisPoints;
+    }
+
+    public long getMinPriceCents() {
+        return minPriceCents;
+    }
+
+    public long getMaxPriceCents() {
+        return maxPriceCents;
+    }
+
+    public boolean isStackable() {
+        return stackable;
+    }
+
+    @Override
+    public int compareTo(DiscountRule other) {
+        int byOrder = Integer.compare(order, other.order);
+        return byOrder != 0 ? byOrder : name.compareTo(other.name);
+    }
+
+    @Override
+    public String toString() {
+        return "DiscountRule [" +
+                "name='" + name + '\'' +
+                ", order=" + order +
+                ", factorBasisPoints=" + factorBasisPoints +
+                ", minPriceCents=" + minPriceCents +
+                ", maxPriceCents=" + maxPriceCents +
+                ", stackable=" + stackable +
+                ']';
+    }
+}
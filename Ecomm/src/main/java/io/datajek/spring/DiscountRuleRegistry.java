@@ -0,0 +1,185 @@
+package io.datajek.spring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Discount rules loaded from a properties file instead of hard-coded strategy classes.
+ * The active rules are an immutable, sorted array replaced wholesale on reload, so pricing
+ * threads read it without locking. A file on disk is polled and reloaded when it changes.
+ * While there are no rules DiscountService leaves the registry out of its pipeline, so the
+ * built-in strategies still fuse; a {@link DiscountRulesChangedEvent} triggers a recompile.
+ *
+ * <pre>
+ * discount.rule.spring-sale.order=10
+ * discount.rule.spring-sale.factor-bp=9000
+ * discount.rule.spring-sale.min-price-cents=2000
+ * discount.rule.spring-sale.max-price-cents=100000
+ * discount.rule.spring-sale.stackable=false
+ * </pre>
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE) // rule conditions see the list price, before the built-in strategies
+public class DiscountRuleRegistry implements DiscountStrategy {
+
+    private static final String PREFIX = "discount.rule.";
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final ResourceLoader resourceLoader;
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${discount.rules.location:classpath:discount-rules.properties}")
+    private String location;
+
+    @Value("${discount.rules.refresh-ms:5000}")
+    private long refreshMillis;
+
+    private volatile DiscountRule[] rules = new DiscountRule[0];
+
+    private volatile long loadedModified = -1;
+
+    private ScheduledExecutorService watcher;
+
+    @Autowired
+    public DiscountRuleRegistry(ResourceLoader resourceLoader, ApplicationEventPublisher eventPublisher) {
+        this.resourceLoader = resourceLoader;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @PostConstruct
+    public void init() throws IOException {
+        reload();
+        if (refreshMillis > 0 && resourceLoader.getResource(location).isFile()) {
+            watcher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "discount-rule-watcher");
+                t.setDaemon(true);
+                return t;
+            });
+            watcher.scheduleWithFixedDelay(this::reloadIfModified, refreshMillis, refreshMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (watcher != null) {
+            watcher.shutdownNow();
+        }
+    }
+
+    // Re-reads the rules file; a missing file means no rules
+    public void reload() throws IOException {
+        Resource resource = resourceLoader.getResource(location);
+        if (!resource.exists()) {
+            replaceRules(Collections.emptyList());
+            loadedModified = -1;
+            logger.info("No discount rules at {}", location);
+            return;
+        }
+        long modified = resource.isFile() ? resource.lastModified() : -1;
+        Properties props = new Properties();
+        try (InputStream in = resource.getInputStream()) {
+            props.load(in);
+        }
+        replaceRules(parse(props));
+        loadedModified = modified;
+        logger.info("Loaded {} discount rules from {}", rules.length, location);
+    }
+
+    // Reloads when the file changed, appeared or was deleted since the last load
+    void reloadIfModified() {
+        try {
+            Resource resource = resourceLoader.getResource(location);
+            if (resource.exists() ? resource.lastModified() != loadedModified : loadedModified != -1) {
+                reload();
+            }
+        } catch (IOException | RuntimeException ex) {
+            // Keep serving the previous snapshot
+            logger.error("Failed to reload discount rules from {}", location, ex);
+        }
+    }
+
+    public void replaceRules(Collection<DiscountRule> newRules) {
+        DiscountRule[] snapshot = newRules.toArray(new DiscountRule[0]);
+        Arrays.sort(snapshot);
+        this.rules = snapshot;
+        eventPublisher.publishEvent(new DiscountRulesChangedEvent(this));
+    }
+
+    public boolean hasRules() {
+        return rules.length > 0;
+    }
+
+    public List<DiscountRule> getRules() {
+        return Collections.unmodifiableList(Arrays.asList(rules));
+    }
+
+    @Override
+    public long applyDiscountCents(long originalPriceCents, RoundingMode roundingMode) {
+        DiscountRule[] snapshot = rules;
+        long discountedCents = originalPriceCents;
+        for (DiscountRule rule : snapshot) {
+            if (rule.matches(originalPriceCents)) {
+                discountedCents = PriceMath.scale(discountedCents, rule.getFactorBasisPoints(),
+                        MultiplicativeDiscountStrategy.BASIS_POINTS, roundingMode);
+                if (!rule.isStackable()) {
+                    break;
+                }
+            }
+        }
+        return discountedCents;
+    }
+
+    static List<DiscountRule> parse(Properties props) {
+        Set<String> names = new TreeSet<>();
+        for (String key : props.stringPropertyNames()) {
+            if (key.startsWith(PREFIX)) {
+                int dot = key.indexOf('.', PREFIX.length());
+                if (dot < 0) {
+                    throw new IllegalArgumentException("Malformed discount rule key: " + key);
+                }
+                names.add(key.substring(PREFIX.length(), dot));
+            }
+        }
+        List<DiscountRule> parsed = new ArrayList<>(names.size());
+        for (String name : names) {
+            String factor = props.getProperty(PREFIX + name + ".factor-bp");
+            if (factor == null) {
+                throw new IllegalArgumentException("Discount rule " + name + " has no factor-bp");
+            }
+            parsed.add(new DiscountRule(name,
+                    Integer.parseInt(props.getProperty(PREFIX + name + ".order", "0").trim()),
+                    Long.parseLong(factor.trim()),
+                    Long.parseLong(props.getProperty(PREFIX + name + ".min-price-cents", "0").trim()),
+                    Long.parseLong(props.getProperty(PREFIX + name + ".max-price-cents", String.valueOf(Long.MAX_VALUE)).trim()),
+                    Boolean.parseBoolean(props.getProperty(PREFIX + name + ".stackable", "true").trim())));
+        }
+        return parsed;
+    }
+}
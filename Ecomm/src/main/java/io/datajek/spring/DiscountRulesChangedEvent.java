@@ -0,0 +1,11 @@
+package io.datajek.spring;
+
+import org.springframework.context.ApplicationEvent;
+
+// Published by DiscountRuleRegistry whenever its active rules are replaced
+public class DiscountRulesChangedEvent extends ApplicationEvent {
+
+    public DiscountRulesChangedEvent(DiscountRuleRegistry source) {
+        super(source);
+    }
+}
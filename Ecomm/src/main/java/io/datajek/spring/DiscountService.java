@@ -1,27 +1,55 @@
 package io.datajek.spring;
 
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Service;
 
+import java.math.RoundingMode;
 import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Service
 public class DiscountService {
 
     private final DiscountStrategy discountDEF, discountBDS, discountMDS;
 
-    private final List<DiscountStrategy> discountStrategies;
+    private final ObjectProvider<DiscountStrategy> discountStrategies;
+
+    // Compiled chain of every DiscountStrategy bean, swapped when the context is refreshed or the rules change
+    private volatile List<DiscountStrategy> compiledStrategies;
+    private volatile DiscountPipeline pipeline;
 
     @Autowired
     public DiscountService(@Qualifier("bundleDiscountStrategy") DiscountStrategy discountBDS,
                            @Qualifier("defaultDiscountStrategy") DiscountStrategy discountDEF,
-                           @Qualifier("membershipDiscountStrategy") DiscountStrategy discountMDS) {
+                           @Qualifier("membershipDiscountStrategy") DiscountStrategy discountMDS,
+                           ObjectProvider<DiscountStrategy> discountStrategies) {
         this.discountDEF = discountDEF;
         this.discountBDS = discountBDS;
         this.discountMDS = discountMDS;
-        this.discountStrategies = Arrays.asList(discountDEF, discountBDS, discountMDS);
+        this.discountStrategies = discountStrategies;
+        rebuildPipeline();
+    }
+
+    @EventListener({ContextRefreshedEvent.class, DiscountRulesChangedEvent.class})
+    public synchronized void rebuildPipeline() {
+        List<DiscountStrategy> strategies = discountStrategies.orderedStream()
+                // a registry without rules is the identity; leaving it out keeps the rest fusable
+                .filter(strategy -> !(strategy instanceof DiscountRuleRegistry) || ((DiscountRuleRegistry) strategy).hasRules())
+                .collect(Collectors.toList());
+        if (strategies.equals(compiledStrategies)) {
+            return;
+        }
+        this.pipeline = DiscountPipeline.compile(strategies);
+        this.compiledStrategies = strategies;
+    }
+
+    public DiscountPipeline getPipeline() {
+        return pipeline;
     }
 
     public double applyDefaultDiscount(double originalPrice) {
@@ -37,10 +65,41 @@ public class DiscountService {
     }
 
     public double applyAllDiscounts(double originalPrice) {
-        double discountedPrice = originalPrice;
-        for (DiscountStrategy strategy : discountStrategies) {
-            discountedPrice = strategy.applyDiscount(discountedPrice);
-        }
-        return discountedPrice;
+        return pipeline.applyDiscount(originalPrice);
+    }
+
+    // Fixed-point variants; prices are whole cents and rounding is explicit
+    public long applyDefaultDiscountCents(long originalPriceCents, RoundingMode roundingMode) {
+        return discountDEF.applyDiscountCents(originalPriceCents, roundingMode);
+    }
+
+    public long applyBundleDiscountCents(long originalPriceCents, RoundingMode roundingMode) {
+        return discountBDS.applyDiscountCents(originalPriceCents, roundingMode);
+    }
+
+    public long applyMembershipDiscountCents(long originalPriceCents, RoundingMode roundingMode) {
+        return discountMDS.applyDiscountCents(originalPriceCents, roundingMode);
+    }
+
+    public long applyAllDiscountsCents(long originalPriceCents, RoundingMode roundingMode) {
+        return pipeline.applyDiscountCents(originalPriceCents, roundingMode);
+    }
+
+    public void applyAllDiscounts(double[] originalPrices, double[] discountedPrices) {
+        pipeline.applyDiscount(originalPrices, discountedPrices);
+    }
+
+    public void applyAllDiscountsCents(long[] originalPricesCents, long[] discountedCents, RoundingMode roundingMode) {
+        pipeline.applyDiscountCents(originalPricesCents, discountedCents, roundingMode);
+    }
+
+    // Bulk repricing with an arbitrary combination of strategies, applied in the given order
+    public void applyDiscounts(double[] originalPrices, double[] discountedPrices, DiscountStrategy... strategies) {
+        DiscountPipeline.compile(Arrays.asList(strategies)).applyDiscount(originalPrices, discountedPrices);
+    }
+
+    public void applyDiscountsCents(long[] originalPricesCents, long[] discountedCents, RoundingMode roundingMode,
+                                    DiscountStrategy... strategies) {
+        DiscountPipeline.compile(Arrays.asList(strategies)).applyDiscountCents(originalPricesCents, discountedCents, roundingMode);
     }
 }
\ No newline at end of file
@@ -1,5 +1,13 @@
 package io.datajek.spring;
 
+import java.math.RoundingMode;
+
 public interface DiscountStrategy {
-    double applyDiscount(double originalPrice);
-}
\ No newline at end of file
+
+    long applyDiscountCents(long originalPriceCents, RoundingMode roundingMode);
+
+    // Adapter over the cents path for callers still working in double
+    default double applyDiscount(double originalPrice) {
+        return PriceMath.toDouble(applyDiscountCents(PriceMath.toCents(originalPrice), PriceMath.DEFAULT_ROUNDING));
+    }
+}
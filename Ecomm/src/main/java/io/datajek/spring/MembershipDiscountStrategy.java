@@ -3,10 +3,10 @@ package io.datajek.spring;
 import org.springframework.stereotype.Component;
 
 @Component
-public class MembershipDiscountStrategy implements DiscountStrategy {
+public class MembershipDiscountStrategy implements MultiplicativeDiscountStrategy {
     @Override
-    public double applyDiscount(double originalPrice) {
+    public long getFactorBasisPoints() {
         // Apply discount based on user's membership level
-        return originalPrice * 0.85; // 15% discount
+        return 8500; // 15% discount
     }
 }
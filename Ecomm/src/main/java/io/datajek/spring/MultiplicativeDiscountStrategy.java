@@ -0,0 +1,24 @@
+package io.datajek.spring;
+
+import java.math.RoundingMode;
+
+/**
+ * A discount that is a plain multiplication of the price by a constant factor.
+ * Consecutive strategies of this kind are folded into a single factor by {@link DiscountPipeline}.
+ */
+public interface MultiplicativeDiscountStrategy extends DiscountStrategy {
+
+    long BASIS_POINTS = 10_000;
+
+    // Factor in basis points, e.g. 9000 multiplies the price by 0.90
+    long getFactorBasisPoints();
+
+    default double getFactor() {
+        return getFactorBasisPoints() / (double) BASIS_POINTS;
+    }
+
+    @Override
+    default long applyDiscountCents(long originalPriceCents, RoundingMode roundingMode) {
+        return PriceMath.scale(originalPriceCents, getFactorBasisPoints(), BASIS_POINTS, roundingMode);
+    }
+}
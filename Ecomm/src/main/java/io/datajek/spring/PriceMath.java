@@ -0,0 +1,86 @@
+package io.datajek.spring;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point helpers for prices held as a {@code long} number of cents.
+ * Everything here is allocation-free except the overflow fallback in {@link #scale}.
+ */
+public final class PriceMath {
+
+    public static final long CENTS_PER_UNIT = 100;
+
+    public static final RoundingMode DEFAULT_ROUNDING = RoundingMode.HALF_EVEN;
+
+    private PriceMath() {
+    }
+
+    public static long toCents(double price) {
+        return Math.round(price * CENTS_PER_UNIT);
+    }
+
+    public static double toDouble(long cents) {
+        return cents / (double) CENTS_PER_UNIT;
+    }
+
+    // cents * numerator / denominator, rounded to a whole cent
+    public static long scale(long cents, long numerator, long denominator, RoundingMode roundingMode) {
+        long product = cents * numerator;
+        if (numerator != 0 && (product / numerator != cents || (cents == Long.MIN_VALUE && numerator == -1))) {
+            return BigDecimal.valueOf(cents)
+                    .multiply(BigDecimal.valueOf(numerator))
+                    .divide(BigDecimal.valueOf(denominator), 0, roundingMode)
+                    .longValueExact();
+        }
+        return divide(product, denominator, roundingMode);
+    }
+
+    // Integer division with the given rounding; the denominator must be positive
+    public static long divide(long numerator, long denominator, RoundingMode roundingMode) {
+        long quotient = numerator / denominator;
+        long remainder = numerator % denominator;
+        if (remainder == 0) {
+            return quotient;
+        }
+        long away = numerator < 0 ? quotient - 1 : quotient + 1;
+        switch (roundingMode) {
+            case DOWN:
+                return quotient;
+            case UP:
+                return away;
+            case FLOOR:
+                return numerator < 0 ? away : quotient;
+            case CEILING:
+                return numerator < 0 ? quotient : away;
+            case HALF_UP:
+            case HALF_DOWN:
+            case HALF_EVEN:
+                long twice = Math.abs(remainder) * 2;
+                if (twice > denominator) {
+                    return away;
+                }
+                if (twice < denominator) {
+                    return quotient;
+                }
+                if (roundingMode == RoundingMode.HALF_UP) {
+                    return away;
+                }
+                if (roundingMode == RoundingMode.HALF_DOWN) {
+                    return quotient;
+                }
+                return (quotient & 1) == 0 ? quotient : away;
+            default:
+                throw new ArithmeticException("Rounding necessary for " + numerator + "/" + denominator);
+        }
+    }
+
+    static long gcd(long a, long b) {
+        while (b != 0) {
+            long t = a % b;
+            a = b;
+            b = t;
+        }
+        return Math.abs(a);
+    }
+}
@@ -0,0 +1,99 @@
+package io.datajek.spring;
+
+import java.util.Locale;
+
+/**
+ * A time-boxed promotion targeting every item, one category or one author.
+ * The active window is half-open: {@code [startMillis, endMillis)}.
+ */
+public final class Promotion {
+
+    public enum Target {
+        ALL, CATEGORY, AUTHOR
+    }
+
+    private final String id;
+    private final int priority;
+    private final Target target;
+    private final String targetValue;
+    private final long startMillis;
+    private final long endMillis;
+    private final DiscountStrategy discount;
+    private final boolean stackable;
+
+    public Promotion(String id, int priority, Target target, String targetValue,
+                     long startMillis, long endMillis, DiscountStrategy discount, boolean stackable) {
+        if (endMillis <= startMillis) {
+            throw new IllegalArgumentException("Promotion " + id + " has an empty time window");
+        }
+        if (target != Target.ALL && targetValue == null) {
+            throw new IllegalArgumentException("Promotion " + id + " targets " + target + " without a value");
+        }
+        this.id = id;
+        this.priority = priority;
+        this.target = target;
+        this.targetValue = target == Target.ALL ? null : targetValue;
+        this.startMillis = startMillis;
+        this.endMillis = endMillis;
+        this.discount = discount;
+        this.stackable = stackable;
+    }
+
+    // Hash key under which the promotion is indexed
+    String targetKey() {
+        return key(target, targetValue);
+    }
+
+    static String key(Target target, String value) {
+        return target == Target.ALL ? "*" : target.name() + ':' + value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public boolean isActiveAt(long epochMillis) {
+        return epochMillis >= startMillis && epochMillis < endMillis;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public Target getTarget() {
+        return target;
+    }
+
+    public String getTargetValue() {
+        return targetValue;
+    }
+
+    public long getStartMillis() {
+        return startMillis;
+    }
+
+    public long getEndMillis() {
+        return endMillis;
+    }
+
+    public DiscountStrategy getDiscount() {
+        return discount;
+    }
+
+    public boolean isStackable() {
+        return stackable;
+    }
+
+    @Override
+    public String toString() {
+        return "Promotion [" +
+                "id='" + id + '\'' +
+                ", priority=" + priority +
+                ", target=" + target +
+                ", targetValue='" + targetValue + '\'' +
+                ", startMillis=" + startMillis +
+                ", endMillis=" + endMillis +
+                ", stackable=" + stackable +
+                ']';
+    }
+}
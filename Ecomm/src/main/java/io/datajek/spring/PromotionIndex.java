@@ -0,0 +1,108 @@
+package io.datajek.spring;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable lookup structure for promotions: a hash index on the promotion target, and under
+ * each target an interval tree over the active windows. Finding the promotions that apply to
+ * an item at an instant is O(log n + k) per target instead of a scan over every promotion.
+ */
+final class PromotionIndex {
+
+    static final PromotionIndex EMPTY = new PromotionIndex(new HashMap<>(), 0);
+
+    private final Map<String, IntervalTree> byTarget;
+    private final int size;
+
+    private PromotionIndex(Map<String, IntervalTree> byTarget, int size) {
+        this.byTarget = byTarget;
+        this.size = size;
+    }
+
+    static PromotionIndex build(Collection<Promotion> promotions) {
+        Map<String, List<Promotion>> grouped = new HashMap<>();
+        for (Promotion promotion : promotions) {
+            grouped.computeIfAbsent(promotion.targetKey(), k -> new ArrayList<>()).add(promotion);
+        }
+        Map<String, IntervalTree> byTarget = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((key, list) -> byTarget.put(key, new IntervalTree(list)));
+        return new PromotionIndex(byTarget, promotions.size());
+    }
+
+    // Adds every promotion indexed under targetKey whose window contains epochMillis
+    void collectActive(String targetKey, long epochMillis, List<Promotion> out) {
+        IntervalTree tree = byTarget.get(targetKey);
+        if (tree != null) {
+            tree.stab(epochMillis, out);
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /**
+     * Promotions sorted by start time, laid out as an implicit balanced tree: the node for
+     * range [lo, hi) is at (lo + hi) / 2 and maxEnd holds the latest end time in its subtree.
+     */
+    private static final class IntervalTree {
+
+        private final Promotion[] promotions;
+        private final long[] starts;
+        private final long[] ends;
+        private final long[] maxEnd;
+
+        IntervalTree(List<Promotion> list) {
+            promotions = list.toArray(new Promotion[0]);
+            Arrays.sort(promotions, Comparator.comparingLong(Promotion::getStartMillis));
+            int n = promotions.length;
+            starts = new long[n];
+            ends = new long[n];
+            maxEnd = new long[n];
+            for (int i = 0; i < n; i++) {
+                starts[i] = promotions[i].getStartMillis();
+                ends[i] = promotions[i].getEndMillis();
+            }
+            fillMaxEnd(0, n);
+        }
+
+        private long fillMaxEnd(int lo, int hi) {
+            if (lo >= hi) {
+                return Long.MIN_VALUE;
+            }
+            int mid = (lo + hi) >>> 1;
+            long max = Math.max(ends[mid], Math.max(fillMaxEnd(lo, mid), fillMaxEnd(mid + 1, hi)));
+            maxEnd[mid] = max;
+            return max;
+        }
+
+        void stab(long t, List<Promotion> out) {
+            stab(0, promotions.length, t, out);
+        }
+
+        private void stab(int lo, int hi, long t, List<Promotion> out) {
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (maxEnd[mid] <= t) {
+                    // every window in this subtree closed before t
+                    return;
+                }
+                stab(lo, mid, t, out);
+                if (starts[mid] > t) {
+                    // everything to the right starts even later
+                    return;
+                }
+                if (ends[mid] > t) {
+                    out.add(promotions[mid]);
+                }
+                lo = mid + 1;
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package io.datajek.spring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+class DiscountPipelineTest {
+
+	private static MultiplicativeDiscountStrategy factor(long basisPoints) {
+		return () -> basisPoints;
+	}
+
+	@Test
+	void shortChainFusesIntoOneFactor() {
+		DiscountPipeline pipeline = DiscountPipeline.compile(Arrays.asList(factor(9000), factor(9500)));
+
+		assertTrue(pipeline.isFused());
+		assertEquals(1, pipeline.getStageCount());
+		// 10000 * 0.9 * 0.95, rounded once
+		assertEquals(8550, pipeline.applyDiscountCents(10000, RoundingMode.HALF_EVEN));
+	}
+
+	@Test
+	void chainThatOverflowsALongSplitsIntoFusedStages() {
+		// 9999 and 10000 share no factor, so the fraction grows by 10^4 per strategy; the fifth overflows
+		DiscountPipeline pipeline = DiscountPipeline.compile(Collections.nCopies(5, factor(9999)));
+
+		assertFalse(pipeline.isFused());
+		assertEquals(2, pipeline.getStageCount());
+		assertEquals(9995, pipeline.applyDiscountCents(10000, RoundingMode.HALF_EVEN));
+	}
+
+	@Test
+	void longChainStaysWithinOneCentPerStageOfTheExactProduct() {
+		List<DiscountStrategy> strategies = new ArrayList<>();
+		BigDecimal exact = BigDecimal.valueOf(123_456_789);
+		for (int i = 0; i < 50; i++) {
+			long basisPoints = 9990 + i % 10;
+			strategies.add(factor(basisPoints));
+			exact = exact.multiply(BigDecimal.valueOf(basisPoints)).divide(BigDecimal.valueOf(10_000));
+		}
+		DiscountPipeline pipeline = DiscountPipeline.compile(strategies);
+
+		long expected = exact.setScale(0, RoundingMode.HALF_EVEN).longValueExact();
+		long actual = pipeline.applyDiscountCents(123_456_789, RoundingMode.HALF_EVEN);
+		// one rounding per fused stage
+		assertTrue(Math.abs(expected - actual) <= pipeline.getStageCount(), "expected " + expected + " got " + actual);
+	}
+
+	@Test
+	void overflowSplitDoesNotMergeAcrossOtherStrategies() {
+		DiscountStrategy flat = (cents, roundingMode) -> cents - 100;
+		List<DiscountStrategy> strategies = new ArrayList<>(Collections.nCopies(5, factor(9999)));
+		strategies.add(flat);
+		strategies.add(factor(5000));
+		DiscountPipeline pipeline = DiscountPipeline.compile(strategies);
+
+		assertEquals(4, pipeline.getStageCount());
+		// 9895 * 0.5 = 4947.5, half-even to 4948
+		assertEquals(4948, pipeline.applyDiscountCents(10000, RoundingMode.HALF_EVEN));
+	}
+}
@@ -0,0 +1,160 @@
+package io.datajek.spring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+class DiscountRuleRegistryTest {
+
+	@TempDir
+	Path dir;
+
+	private File rulesFile;
+
+	private final List<Object> events = new ArrayList<>();
+
+	private DiscountRuleRegistry registry;
+
+	@BeforeEach
+	void setUp() {
+		rulesFile = dir.resolve("discount-rules.properties").toFile();
+		registry = new DiscountRuleRegistry(new DefaultResourceLoader(), events::add);
+		ReflectionTestUtils.setField(registry, "location", rulesFile.toURI().toString());
+	}
+
+	private static Properties props(String... lines) throws IOException {
+		Properties props = new Properties();
+		props.load(new StringReader(String.join("\n", lines)));
+		return props;
+	}
+
+	// Writes the file and moves its timestamp on, since a rewrite within a second may keep the old one
+	private void writeRules(String... lines) throws IOException {
+		long previous = rulesFile.exists() ? rulesFile.lastModified() : 0;
+		Files.write(rulesFile.toPath(), String.join("\n", lines).getBytes(StandardCharsets.ISO_8859_1));
+		rulesFile.setLastModified(Math.max(previous + 2000, System.currentTimeMillis()));
+	}
+
+	private static DiscountRule rule(String name, int order, long factor, boolean stackable) {
+		return new DiscountRule(name, order, factor, 0, Long.MAX_VALUE, stackable);
+	}
+
+	@Test
+	void parseReadsEveryFieldAndFillsInDefaults() throws IOException {
+		List<DiscountRule> rules = DiscountRuleRegistry.parse(props(
+				"discount.rule.sale.order=10",
+				"discount.rule.sale.factor-bp=9000",
+				"discount.rule.sale.min-price-cents=2000",
+				"discount.rule.sale.max-price-cents=100000",
+				"discount.rule.sale.stackable=false",
+				"discount.rule.plain.factor-bp= 9500 ",
+				"unrelated.key=1"));
+
+		assertEquals(2, rules.size());
+		DiscountRule plain = rules.get(0);
+		assertEquals("plain", plain.getName());
+		assertEquals(0, plain.getOrder());
+		assertEquals(9500, plain.getFactorBasisPoints());
+		assertEquals(0, plain.getMinPriceCents());
+		assertEquals(Long.MAX_VALUE, plain.getMaxPriceCents());
+		assertTrue(plain.isStackable());
+		DiscountRule sale = rules.get(1);
+		assertEquals(10, sale.getOrder());
+		assertEquals(9000, sale.getFactorBasisPoints());
+		assertEquals(2000, sale.getMinPriceCents());
+		assertEquals(100000, sale.getMaxPriceCents());
+		assertFalse(sale.isStackable());
+	}
+
+	@Test
+	void parseRejectsARuleWithoutAFactorOrAMalformedKey() {
+		assertThrows(IllegalArgumentException.class, () -> DiscountRuleRegistry.parse(props("discount.rule.sale.order=1")));
+		assertThrows(IllegalArgumentException.class, () -> DiscountRuleRegistry.parse(props("discount.rule.sale=9000")));
+	}
+
+	@Test
+	void rulesApplyInAscendingOrderThenByName() {
+		registry.replaceRules(Arrays.asList(rule("c", 20, 9000, true), rule("b", 10, 9000, true), rule("a", 20, 9000, true)));
+
+		List<String> names = new ArrayList<>();
+		for (DiscountRule rule : registry.getRules()) {
+			names.add(rule.getName());
+		}
+		assertEquals(Arrays.asList("b", "a", "c"), names);
+		// 10000 * 0.9^3
+		assertEquals(7290, registry.applyDiscountCents(10000, RoundingMode.HALF_EVEN));
+	}
+
+	@Test
+	void matchingNonStackableRuleIsTheLastOneApplied() {
+		registry.replaceRules(Arrays.asList(
+				rule("first", 1, 9000, true),
+				new DiscountRule("exclusive", 2, 8000, 5000, Long.MAX_VALUE, false),
+				rule("never", 3, 5000, true)));
+
+		// 10000 * 0.9 * 0.8, then the break
+		assertEquals(7200, registry.applyDiscountCents(10000, RoundingMode.HALF_EVEN));
+		// the exclusive rule only matches from 5000, so below that evaluation carries on: 4000 * 0.9 * 0.5
+		assertEquals(1800, registry.applyDiscountCents(4000, RoundingMode.HALF_EVEN));
+	}
+
+	@Test
+	void reloadPicksUpChangesAndDeletionOfTheFile() throws IOException {
+		writeRules("discount.rule.sale.factor-bp=9000");
+		registry.reload();
+		assertEquals(9000, registry.applyDiscountCents(10000, RoundingMode.HALF_EVEN));
+
+		// unchanged file: nothing is reloaded or announced
+		int announced = events.size();
+		registry.reloadIfModified();
+		assertEquals(announced, events.size());
+
+		writeRules("discount.rule.sale.factor-bp=8000");
+		registry.reloadIfModified();
+		assertEquals(8000, registry.applyDiscountCents(10000, RoundingMode.HALF_EVEN));
+		assertTrue(events.get(events.size() - 1) instanceof DiscountRulesChangedEvent);
+
+		assertTrue(rulesFile.delete());
+		registry.reloadIfModified();
+		assertFalse(registry.hasRules());
+		assertEquals(10000, registry.applyDiscountCents(10000, RoundingMode.HALF_EVEN));
+
+		// once the deletion is seen, later polls leave the empty rules alone
+		announced = events.size();
+		registry.reloadIfModified();
+		assertEquals(announced, events.size());
+
+		writeRules("discount.rule.sale.factor-bp=9500");
+		registry.reloadIfModified();
+		assertEquals(9500, registry.applyDiscountCents(10000, RoundingMode.HALF_EVEN));
+	}
+
+	@Test
+	void badFileKeepsThePreviousRules() throws IOException {
+		writeRules("discount.rule.sale.factor-bp=9000");
+		registry.reload();
+
+		writeRules("discount.rule.sale.order=1");
+		registry.reloadIfModified();
+
+		assertEquals(9000, registry.applyDiscountCents(10000, RoundingMode.HALF_EVEN));
+	}
+}
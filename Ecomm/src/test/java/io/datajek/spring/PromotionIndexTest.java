@@ -0,0 +1,119 @@
+package io.datajek.spring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeSet;
+import org.junit.jupiter.api.Test;
+
+class PromotionIndexTest {
+
+	private static final String ALL = Promotion.key(Promotion.Target.ALL, null);
+
+	private static Promotion promotion(String id, long start, long end) {
+		return new Promotion(id, 0, Promotion.Target.ALL, null, start, end, (price, rounding) -> price, true);
+	}
+
+	private static List<String> active(PromotionIndex index, String targetKey, long t) {
+		List<Promotion> out = new ArrayList<>();
+		index.collectActive(targetKey, t, out);
+		List<String> ids = new ArrayList<>();
+		for (Promotion promotion : out) {
+			ids.add(promotion.getId());
+		}
+		Collections.sort(ids);
+		return ids;
+	}
+
+	private static List<String> scan(List<Promotion> promotions, long t) {
+		List<String> ids = new ArrayList<>();
+		for (Promotion promotion : promotions) {
+			if (promotion.isActiveAt(t)) {
+				ids.add(promotion.getId());
+			}
+		}
+		Collections.sort(ids);
+		return ids;
+	}
+
+	@Test
+	void windowIncludesItsStartAndExcludesItsEnd() {
+		PromotionIndex index = PromotionIndex.build(Collections.singletonList(promotion("p", 100, 200)));
+
+		assertEquals(Collections.emptyList(), active(index, ALL, 99));
+		assertEquals(Collections.singletonList("p"), active(index, ALL, 100));
+		assertEquals(Collections.singletonList("p"), active(index, ALL, 199));
+		assertEquals(Collections.emptyList(), active(index, ALL, 200));
+	}
+
+	@Test
+	void windowEndingWhereTheNextStartsHandsOver() {
+		PromotionIndex index = PromotionIndex.build(Arrays.asList(promotion("a", 0, 100), promotion("b", 100, 200)));
+
+		assertEquals(Collections.singletonList("a"), active(index, ALL, 99));
+		assertEquals(Collections.singletonList("b"), active(index, ALL, 100));
+	}
+
+	@Test
+	void overlappingAndNestedWindowsAreAllFound() {
+		PromotionIndex index = PromotionIndex.build(Arrays.asList(
+				promotion("outer", 0, 1000),
+				promotion("nested", 200, 300),
+				promotion("deeper", 250, 260),
+				promotion("overlap", 280, 1200),
+				promotion("same-start", 200, 220)));
+
+		assertEquals(Arrays.asList("deeper", "nested", "outer"), active(index, ALL, 255));
+		assertEquals(Arrays.asList("nested", "outer", "overlap"), active(index, ALL, 290));
+		assertEquals(Arrays.asList("nested", "outer", "same-start"), active(index, ALL, 200));
+		assertEquals(Collections.singletonList("overlap"), active(index, ALL, 1000));
+	}
+
+	@Test
+	void emptyIndexAndUnknownTargetFindNothing() {
+		assertEquals(Collections.emptyList(), active(PromotionIndex.EMPTY, ALL, 0));
+		assertEquals(0, PromotionIndex.build(Collections.emptyList()).size());
+
+		PromotionIndex index = PromotionIndex.build(Collections.singletonList(
+				new Promotion("java", 0, Promotion.Target.CATEGORY, "Java", 0, 100, (price, rounding) -> price, true)));
+		assertEquals(Collections.emptyList(), active(index, ALL, 50));
+		assertEquals(Collections.emptyList(), active(index, Promotion.key(Promotion.Target.CATEGORY, "Go"), 50));
+		assertEquals(Collections.singletonList("java"), active(index, Promotion.key(Promotion.Target.CATEGORY, " java "), 50));
+	}
+
+	@Test
+	void stabbingMatchesALinearScan() {
+		Random random = new Random(42);
+		for (int round = 0; round < 50; round++) {
+			List<Promotion> promotions = new ArrayList<>();
+			int n = random.nextInt(40);
+			for (int i = 0; i < n; i++) {
+				long start = random.nextInt(1000);
+				// mostly short windows, some spanning most of the range so they nest others
+				long length = 1 + (random.nextInt(4) == 0 ? random.nextInt(1000) : random.nextInt(50));
+				promotions.add(promotion("p" + i, start, start + length));
+			}
+			PromotionIndex index = PromotionIndex.build(promotions);
+
+			// every boundary, either side of it, and random instants
+			TreeSet<Long> instants = new TreeSet<>();
+			for (Promotion promotion : promotions) {
+				for (long edge : new long[] {promotion.getStartMillis(), promotion.getEndMillis()}) {
+					instants.add(edge - 1);
+					instants.add(edge);
+					instants.add(edge + 1);
+				}
+			}
+			for (int i = 0; i < 50; i++) {
+				instants.add((long) random.nextInt(2200) - 100);
+			}
+			for (long t : instants) {
+				assertEquals(scan(promotions, t), active(index, ALL, t), "round " + round + " at " + t);
+			}
+		}
+	}
+}
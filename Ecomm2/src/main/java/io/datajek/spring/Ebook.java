@@ -2,17 +2,28 @@ package io.datajek.spring;
 
 import javax.persistence.*;
 
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+
 @Entity
 @Table(name="jpa_ebook")
-@NamedQuery(name="get_all_ebooks", query="select e from Ebook e")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NamedQuery(name="get_all_ebooks", query="select e from Ebook e",
+        hints = @QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"))
 public class Ebook {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "ebook_seq")
+    // pooled optimizer: one sequence round trip hands out allocationSize ids
+    @SequenceGenerator(name = "ebook_seq", sequenceName = "jpa_ebook_seq", allocationSize = 50)
     private int id;
     private String title;
     @Column(name="publisher")
     private String author;
     private double price;
+    // optimistic lock column, checked by merge and by EbookRepository.updateEbooks
+    @Version
+    private int version;
 
     // No-argument constructor
     public Ebook() {
@@ -67,6 +78,14 @@ public class Ebook {
         this.price = price;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     @Override
     public String toString() {
         return "Ebook [" +
@@ -74,6 +93,7 @@ public class Ebook {
                 ", title='" + title + '\'' +
                 ", author='" + author + '\'' +
                 ", price=" + price +
+                ", version=" + version +
                 ']';
     }
 }
\ No newline at end of file
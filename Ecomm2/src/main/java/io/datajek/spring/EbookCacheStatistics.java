@@ -0,0 +1,60 @@
+package io.datajek.spring;
+
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.PersistenceUnit;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+// Hit/miss counters for the Ebook second-level cache and the query cache
+@Component
+public class EbookCacheStatistics {
+
+	@PersistenceUnit
+	EntityManagerFactory emf;
+
+	private Statistics statistics() {
+		return emf.unwrap(SessionFactory.class).getStatistics();
+	}
+
+	public long getEntityHitCount() {
+		return statistics().getSecondLevelCacheHitCount();
+	}
+
+	public long getEntityMissCount() {
+		return statistics().getSecondLevelCacheMissCount();
+	}
+
+	public long getEntityPutCount() {
+		return statistics().getSecondLevelCachePutCount();
+	}
+
+	public long getQueryHitCount() {
+		return statistics().getQueryCacheHitCount();
+	}
+
+	public long getQueryMissCount() {
+		return statistics().getQueryCacheMissCount();
+	}
+
+	public long getQueryPutCount() {
+		return statistics().getQueryCachePutCount();
+	}
+
+	public void evictAll() {
+		emf.getCache().evictAll();
+	}
+
+	@Override
+	public String toString() {
+		return "EbookCacheStatistics [" +
+				"entityHits=" + getEntityHitCount() +
+				", entityMisses=" + getEntityMissCount() +
+				", entityPuts=" + getEntityPutCount() +
+				", queryHits=" + getQueryHitCount() +
+				", queryMisses=" + getQueryMissCount() +
+				", queryPuts=" + getQueryPutCount() +
+				']';
+	}
+}
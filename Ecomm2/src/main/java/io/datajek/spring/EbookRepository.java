@@ -1,13 +1,27 @@
 package io.datajek.spring;
 
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
+import org.hibernate.jpa.QueryHints;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.jdbc.core.BeanPropertyRowMapper;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.persistence.Cache;
+import javax.persistence.CacheStoreMode;
 import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
 import javax.persistence.PersistenceContext;
 import javax.persistence.TypedQuery;
 import javax.transaction.Transactional;
@@ -16,13 +30,96 @@ import javax.transaction.Transactional;
 @Transactional
 public class EbookRepository{
 
+	private static final String CACHE_STORE_MODE = "javax.persistence.cache.storeMode";
+
+	private static final String UPDATE_EBOOK_SQL =
+			"update jpa_ebook set title = ?, publisher = ?, price = ?, version = version + 1 where id = ? and version = ?";
+
 	@PersistenceContext
 	EntityManager em;
 
+	@Autowired
+	JdbcTemplate jdbcTemplate;
+
+	// Entities persisted between flush/clear; matches the JDBC batch size by default
+	@Value("${ebook.insert.chunk-size:${spring.jpa.properties.hibernate.jdbc.batch_size:50}}")
+	int chunkSize;
+
+	// Rows pulled per round trip by the streaming reads
+	@Value("${ebook.stream.fetch-size:500}")
+	int fetchSize;
+
 	public int deleteEbookById(int id){
-	    Ebook ebook = em.find(Ebook.class,id);
-		em.remove(ebook);
-		return 1;
+		return deleteByIds(Collections.singletonList(id));
+	}
+
+	// One DELETE ... WHERE id IN (...) per chunk, no entity loading; returns rows deleted
+	public int deleteByIds(Collection<Integer> ids){
+		List<Integer> all = new ArrayList<>(ids);
+		int deleted = 0;
+		for (int from = 0; from < all.size(); from += chunkSize) {
+			List<Integer> chunk = all.subList(from, Math.min(from + chunkSize, all.size()));
+			deleted += em.createQuery("delete from Ebook e where e.id in :ids")
+					.setParameter("ids", chunk)
+					.executeUpdate();
+		}
+		return deleted;
+	}
+
+	// Updates title, author and price straight from the given (possibly detached) ebooks in
+	// JDBC batches, matching on id and version so concurrent changes are never overwritten.
+	// Returns rows updated; if any row was stale or missing the whole call is rolled back.
+	public int updateEbooks(Collection<Ebook> ebooks){
+		em.flush();
+		List<Ebook> all = new ArrayList<>(ebooks);
+		int[][] counts = jdbcTemplate.batchUpdate(UPDATE_EBOOK_SQL, all, chunkSize, (ps, ebook) -> {
+			ps.setString(1, ebook.getTitle());
+			ps.setString(2, ebook.getAuthor());
+			ps.setDouble(3, ebook.getPrice());
+			ps.setInt(4, ebook.getId());
+			ps.setInt(5, ebook.getVersion());
+		});
+		int updated = 0;
+		List<Integer> stale = new ArrayList<>();
+		int i = 0;
+		for (int[] chunk : counts) {
+			for (int count : chunk) {
+				Ebook ebook = all.get(i++);
+				// SUCCESS_NO_INFO (-2) means the driver did not report a count
+				if (count > 0 || count == Statement.SUCCESS_NO_INFO) {
+					updated++;
+				} else {
+					stale.add(ebook.getId());
+				}
+			}
+		}
+		if (!stale.isEmpty()) {
+			throw new OptimisticLockException("Ebooks changed or deleted concurrently: " + stale);
+		}
+		all.forEach(ebook -> ebook.setVersion(ebook.getVersion() + 1));
+		evictAfterCompletion(all);
+		return updated;
+	}
+
+	// The JDBC batch bypasses Hibernate, so drop the touched ebooks and cached query results
+	// from the second-level cache once the transaction has finished
+	private void evictAfterCompletion(List<Ebook> ebooks){
+		List<Integer> ids = new ArrayList<>(ebooks.size());
+		ebooks.forEach(ebook -> ids.add(ebook.getId()));
+		Runnable evict = () -> {
+			Cache cache = em.getEntityManagerFactory().getCache();
+			ids.forEach(id -> cache.evict(Ebook.class, id));
+			cache.unwrap(org.hibernate.Cache.class).evictDefaultQueryRegion();
+		};
+		evict.run();
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+				@Override
+				public void afterCompletion(int status) {
+					evict.run();
+				}
+			});
+		}
 	}
 
 	public int updateEbook(Ebook ebook){
@@ -33,6 +130,25 @@ public class EbookRepository{
 	   	return em.merge(ebook).getId();
 	}
 
+	// Bulk insert: persist (no SELECT per row) and flush/clear every chunk so the
+	// persistence context stays small and Hibernate sends each chunk as one JDBC batch
+	public int insertEbooks(Collection<Ebook> ebooks){
+		// keep a bulk load from flooding the second-level cache
+		em.setProperty(CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+		int count = 0;
+		for (Ebook ebook : ebooks) {
+			ebook.setId(0);
+			em.persist(ebook);
+			if (++count % chunkSize == 0) {
+				em.flush();
+				em.clear();
+			}
+		}
+		em.flush();
+		em.clear();
+		return count;
+	}
+
 	public Ebook getEbookById(int id) {
 	    Ebook ebook = em.find(Ebook.class, id);
 		return ebook;
@@ -42,4 +158,30 @@ public class EbookRepository{
 		TypedQuery<Ebook> namedQuery = em.createNamedQuery("get_all_ebooks", Ebook.class);
 		return namedQuery.getResultList();
 	}
+
+	// Streams the catalog through a forward-only cursor; each ebook is detached before it
+	// is handed out, so heap use does not grow with the table. The caller must consume and
+	// close the stream inside its own transaction.
+	public Stream<Ebook> streamAllEbooks() {
+		TypedQuery<Ebook> namedQuery = em.createNamedQuery("get_all_ebooks", Ebook.class)
+				.setHint(QueryHints.HINT_FETCH_SIZE, fetchSize)
+				.setHint(QueryHints.HINT_READONLY, true)
+				.setHint(QueryHints.HINT_CACHEABLE, false)
+				.setHint(CACHE_STORE_MODE, CacheStoreMode.BYPASS);
+		return namedQuery.getResultStream().map(ebook -> {
+			em.detach(ebook);
+			return ebook;
+		});
+	}
+
+	// Callback variant of streamAllEbooks that runs entirely inside this repository's transaction
+	public long forEachEbook(Consumer<? super Ebook> action) {
+		long count = 0;
+		try (Stream<Ebook> ebooks = streamAllEbooks()) {
+			for (Iterator<Ebook> it = ebooks.iterator(); it.hasNext(); count++) {
+				action.accept(it.next());
+			}
+		}
+		return count;
+	}
 }
\ No newline at end of file
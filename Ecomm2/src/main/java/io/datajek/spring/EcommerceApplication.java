@@ -1,5 +1,8 @@
 package io.datajek.spring;
 
+import java.util.Arrays;
+import java.util.Collections;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.CommandLineRunner;
@@ -14,6 +17,9 @@ public class EcommerceApplication implements CommandLineRunner {
     @Autowired
     EbookRepository ebookRepo;
 
+    @Autowired
+    EbookCacheStatistics cacheStats;
+
     private Logger logger = LoggerFactory.getLogger(this.getClass());
 
     public static void main(String[] args) {
@@ -32,6 +38,16 @@ public class EcommerceApplication implements CommandLineRunner {
         logger.info("Updating Ebook with ID 3: {}", ebookRepo.updateEbook(new Ebook(3, "Java Concurrency in Practice", "Brian Goetz", 80.00)));
         logger.info("Deleting Ebook with Id 2: {}", ebookRepo.deleteEbookById(2));
         logger.info("All Ebooks Data: {}", ebookRepo.getAllEbooks());
+        logger.info("Bulk inserting Ebooks: {}", ebookRepo.insertEbooks(Arrays.asList(
+                new Ebook("Refactoring", "Martin Fowler", 47.99),
+                new Ebook("The Pragmatic Programmer", "Andrew Hunt, David Thomas", 42.50))));
+        logger.info("Streamed Ebooks: {}", ebookRepo.forEachEbook(ebook -> logger.info("Streaming Ebook: {}", ebook)));
+        Ebook cleanCode = ebookRepo.getEbookById(1);
+        logger.info("Ebook 1 (cached): {}", cleanCode);
+        cleanCode.setPrice(34.99);
+        logger.info("Batch updating Ebooks: {}", ebookRepo.updateEbooks(Collections.singletonList(cleanCode)));
+        logger.info("Batch deleting Ebooks with Ids 4, 5: {}", ebookRepo.deleteByIds(Arrays.asList(4, 5)));
+        logger.info("Cache statistics: {}", cacheStats);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,34 @@
+package io.datajek.spring;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+// A broken second-level cache setup fails the SessionFactory, and with it this context
+@SpringBootTest
+class EcommerceApplicationTests {
+
+	@Autowired
+	EbookRepository ebookRepo;
+
+	@Autowired
+	EbookCacheStatistics cacheStats;
+
+	@Test
+	void contextLoads() {
+	}
+
+	@Test
+	void secondReadOfAnEbookIsACacheHit() {
+		cacheStats.evictAll();
+		long hits = cacheStats.getEntityHitCount();
+
+		ebookRepo.getEbookById(1);
+		ebookRepo.getEbookById(1);
+
+		assertTrue(cacheStats.getEntityHitCount() > hits);
+	}
+
+}
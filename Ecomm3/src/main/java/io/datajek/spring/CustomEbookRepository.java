@@ -9,11 +9,11 @@ import org.springframework.stereotype.Repository;
 public interface CustomEbookRepository {
 
     @Modifying
-    @Query("update Ebook e set e.price = :price where e.id = :id")
-    void updatePrice(@Param("id")int id,@Param("price") double price);
+    @Query("update Ebook e set e.price = :price, e.version = e.version + 1 where e.id = :id")
+    int updatePrice(@Param("id")int id,@Param("price") double price);
 
     @Modifying
-    @Query("update Ebook e set e.discount = :discount where e.id = :id")
-    void updateDiscount(@Param("id")int id,@Param("discount") double discount);
+    @Query("update Ebook e set e.discount = :discount, e.version = e.version + 1 where e.id = :id")
+    int updateDiscount(@Param("id")int id,@Param("discount") double discount);
 
 }
\ No newline at end of file
@@ -8,9 +8,14 @@ import javax.persistence.GenerationType;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
 import javax.persistence.NamedQuery;
+import javax.persistence.PostLoad;
+import javax.persistence.Transient;
+import javax.persistence.Version;
+import javax.persistence.EntityListeners;
 import com.fasterxml.jackson.annotation.JsonFormat;
 
 @Entity
+@EntityListeners({EbookSearchIndexListener.class, EbookIdFilterListener.class, EbookPriceHistoryListener.class})
 public class Ebook {
 
     @Id
@@ -24,6 +29,14 @@ public class Ebook {
     @JsonFormat(pattern = "yyyy-MM-dd")
     private Date publishDate;
     private double discount;
+    // optimistic lock column; also bumped by the bulk JPQL and JDBC updates
+    @Version
+    private int version;
+    // price and discount as last read or recorded; NaN for a new entity, so its first flush is recorded
+    @Transient
+    private double recordedPrice = Double.NaN;
+    @Transient
+    private double recordedDiscount = Double.NaN;
     // No-argument constructor
     public Ebook() {
     }
@@ -89,6 +102,14 @@ public class Ebook {
         this.discount = discount;
     }
 
+    public int getVersion() {
+        return version;
+    }
+
+    public void setVersion(int version) {
+        this.version = version;
+    }
+
     public Date getPublishDate() {
 		return publishDate;
 	}
@@ -97,6 +118,17 @@ public class Ebook {
 		this.publishDate = publishDate;
 	}
 
+    @PostLoad
+    void markPricesRecorded() {
+        recordedPrice = price;
+        recordedDiscount = discount;
+    }
+
+    // Lets EbookPriceHistoryListener skip updates that touched neither field
+    boolean pricesChangedSinceRecorded() {
+        return Double.compare(price, recordedPrice) != 0 || Double.compare(discount, recordedDiscount) != 0;
+    }
+
     @Override
     public String toString() {
         return "Ebook [" +
@@ -105,6 +137,7 @@ public class Ebook {
                 ", author='" + author + '\'' +
                 ", price=" + price +
                 ", publishDate=" + publishDate +
+                ", version=" + version +
                 ']';
     }
 }
\ No newline at end of file
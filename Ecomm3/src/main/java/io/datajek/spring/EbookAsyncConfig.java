@@ -0,0 +1,90 @@
+package io.datajek.spring;
+
+import java.util.concurrent.Callable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.CallableProcessingInterceptor;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.context.request.async.DeferredResultProcessingInterceptor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Two separately sized pools for database work: one for cheap, bounded requests such as
+ * GET /ebooks/{id}, and one for bulk work (full listings, imports, exports). A burst of slow
+ * bulk requests fills only its own pool and is rejected with 503 once that pool's queue is full.
+ * The pools exist only with ebook.async.enabled.
+ *
+ * Async requests keep the container's timeout, except those marked with {@link #allowLongRequest}
+ * (exports and imports), which get ebook.async.long-request-timeout-ms.
+ */
+@Configuration
+public class EbookAsyncConfig implements WebMvcConfigurer {
+
+    private static final String LONG_REQUEST = EbookAsyncConfig.class.getName() + ".LONG_REQUEST";
+
+    @Value("${ebook.async.enabled:false}")
+    private boolean async;
+
+    @Value("${ebook.async.bulk.threads:2}")
+    private int bulkThreads;
+
+    @Value("${ebook.async.bulk.queue:8}")
+    private int bulkQueue;
+
+    @Value("${ebook.async.long-request-timeout-ms:1800000}")
+    private long longRequestTimeoutMillis;
+
+    // Called by a handler before it returns, for requests that may legitimately run for minutes
+    static void allowLongRequest(WebRequest request) {
+        request.setAttribute(LONG_REQUEST, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "ebook.async.enabled", havingValue = "true")
+    public BoundedExecutor ebookQueryExecutor(@Value("${ebook.async.query.threads:16}") int threads,
+                                              @Value("${ebook.async.query.queue:500}") int queue) {
+        return new BoundedExecutor("ebook-query", threads, queue);
+    }
+
+    @Bean(destroyMethod = "shutdown")
+    @ConditionalOnProperty(name = "ebook.async.enabled", havingValue = "true")
+    public BoundedExecutor ebookBulkExecutor() {
+        return new BoundedExecutor("ebook-bulk", bulkThreads, bulkQueue);
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        if (async) {
+            // StreamingResponseBody exports run on the MVC async executor, so point it at the bulk pool
+            configurer.setTaskExecutor(new ConcurrentTaskExecutor(ebookBulkExecutor()));
+        }
+        // StreamingResponseBody is processed as a Callable, CompletableFuture as a DeferredResult
+        configurer.registerCallableInterceptors(new CallableProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, Callable<T> task) {
+                applyLongTimeout(request);
+            }
+        });
+        configurer.registerDeferredResultInterceptors(new DeferredResultProcessingInterceptor() {
+            @Override
+            public <T> void beforeConcurrentHandling(NativeWebRequest request, DeferredResult<T> deferredResult) {
+                applyLongTimeout(request);
+            }
+        });
+    }
+
+    // Runs before the async request starts, so the timeout still takes effect
+    private void applyLongTimeout(NativeWebRequest request) {
+        if (request instanceof AsyncWebRequest && request.getAttribute(LONG_REQUEST, RequestAttributes.SCOPE_REQUEST) != null) {
+            ((AsyncWebRequest) request).setTimeout(longRequestTimeoutMillis);
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package io.datajek.spring;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+/**
+ * The EbookController endpoints with their database work moved onto the bounded pools from
+ * EbookAsyncConfig (ebook.async.enabled). Responses known without a query, such as snapshot
+ * hits and cached 304s, are still answered on the servlet thread.
+ */
+@RestController
+@ConditionalOnProperty(name = "ebook.async.enabled", havingValue = "true")
+public class EbookAsyncController {
+
+	private final EbookController sync;
+
+	private final BoundedExecutor queryExecutor;
+
+	private final BoundedExecutor bulkExecutor;
+
+	@Autowired
+	public EbookAsyncController(EbookService service,
+			@Qualifier("ebookQueryExecutor") BoundedExecutor queryExecutor,
+			@Qualifier("ebookBulkExecutor") BoundedExecutor bulkExecutor) {
+		this.sync = new EbookController(service);
+		this.queryExecutor = queryExecutor;
+		this.bulkExecutor = bulkExecutor;
+	}
+
+	@GetMapping("/ebooks")
+	public CompletableFuture<ResponseEntity<?>> allEbooks(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+		ResponseEntity<?> known = sync.knownCatalog(ifNoneMatch);
+		if (known != null) {
+			return CompletableFuture.completedFuture(known);
+		}
+		return bulk(sync::loadCatalog);
+	}
+
+	@GetMapping(value = "/ebooks", params = "limit")
+	public CompletableFuture<EbookPage> ebookPage(@RequestParam int limit,
+							   @RequestParam(required = false) String cursor,
+							   @RequestParam(defaultValue = "id") String sort,
+							   @RequestParam(required = false) String fields) {
+		return query(() -> sync.ebookPage(limit, cursor, sort, fields));
+	}
+
+	@GetMapping("/ebooks/search")
+	public CompletableFuture<List<Ebook>> searchEbooks(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+		return query(() -> sync.searchEbooks(q, limit));
+	}
+
+	@GetMapping("/ebooks/cache/stats")
+	public Map<String, Object> cacheStats() {
+		return sync.cacheStats();
+	}
+
+	@GetMapping("/ebooks/async/stats")
+	public Map<String, Object> asyncStats() {
+		Map<String, Object> stats = new LinkedHashMap<>();
+		stats.put("enabled", true);
+		stats.put("query", queryExecutor.stats());
+		stats.put("bulk", bulkExecutor.stats());
+		return stats;
+	}
+
+	// Already asynchronous; runs on the MVC task executor, which EbookAsyncConfig points at the bulk pool
+	@GetMapping(value = "/ebooks/export", produces = "application/x-ndjson")
+	public StreamingResponseBody exportEbooks(WebRequest request) {
+		return sync.exportEbooks(request);
+	}
+
+	@GetMapping("/ebooks/{id}")
+	public CompletableFuture<ResponseEntity<?>> getEbook(@PathVariable int id,
+			@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+		ResponseEntity<?> known = sync.knownEbook(id, ifNoneMatch);
+		if (known != null) {
+			return CompletableFuture.completedFuture(known);
+		}
+		return query(() -> sync.loadEbook(id, ifNoneMatch));
+	}
+
+	@PostMapping("/ebooks")
+	public CompletableFuture<Ebook> addEbook(@RequestBody Ebook ebook) {
+		return query(() -> sync.addEbook(ebook));
+	}
+
+	@PostMapping("/ebooks/bulk")
+	public CompletableFuture<EbookImportResult> importEbooks(InputStream body, WebRequest request) {
+		EbookAsyncConfig.allowLongRequest(request);
+		return bulk(() -> {
+			try {
+				return sync.importEbooks(body);
+			} catch (IOException ex) {
+				throw new UncheckedIOException(ex);
+			}
+		});
+	}
+
+	@PutMapping("/ebooks/{id}")
+	public CompletableFuture<ResponseEntity<Ebook>> updateEbook(@PathVariable int id, @RequestBody Ebook ebook,
+			@RequestHeader(value = "If-Match", required = false) String ifMatch) {
+		return query(() -> sync.updateEbook(id, ebook, ifMatch));
+	}
+
+	@PatchMapping("/ebooks/{id}")
+	public CompletableFuture<ResponseEntity<Ebook>> partialUpdate(@PathVariable int id, @RequestBody Map<String, Object> ebookPatch,
+			@RequestHeader(value = "If-Match", required = false) String ifMatch) {
+		return query(() -> sync.partialUpdate(id, ebookPatch, ifMatch));
+	}
+
+	@PatchMapping("/ebooks/{id}/price")
+	public CompletableFuture<Void> updatePrice(@PathVariable int id, @RequestBody double price) {
+		return query(() -> {
+			sync.updatePrice(id, price);
+			return null;
+		});
+	}
+
+	@PatchMapping("/ebooks/{id}/discount")
+	public CompletableFuture<Void> updateDiscount(@PathVariable int id, @RequestBody double discount) {
+		return query(() -> {
+			sync.updateDiscount(id, discount);
+			return null;
+		});
+	}
+
+	@PatchMapping("/ebooks/prices")
+	public CompletableFuture<EbookBatchUpdateResult> updatePrices(@RequestBody EbookPriceUpdates updates) {
+		return bulk(() -> sync.updatePrices(updates));
+	}
+
+	@PostMapping("/ebooks/prices/as-of")
+	public CompletableFuture<List<EbookPricePoint>> pricesAsOf(@RequestBody List<EbookPriceQuery> queries) {
+		return bulk(() -> sync.pricesAsOf(queries));
+	}
+
+	@DeleteMapping("/ebooks/{id}")
+	public CompletableFuture<Void> deleteEbook(@PathVariable int id) {
+		return query(() -> {
+			sync.deleteEbook(id);
+			return null;
+		});
+	}
+
+	private <T> CompletableFuture<T> query(Supplier<T> work) {
+		return CompletableFuture.supplyAsync(work, queryExecutor);
+	}
+
+	private <T> CompletableFuture<T> bulk(Supplier<T> work) {
+		return CompletableFuture.supplyAsync(work, bulkExecutor);
+	}
+}
@@ -0,0 +1,12 @@
+package io.datajek.spring;
+
+import java.util.List;
+import java.util.Map;
+
+public interface EbookBatchRepository {
+
+    // Each returns the ids that matched no row
+    List<Integer> updatePrices(Map<Integer, Double> prices);
+
+    List<Integer> updateDiscounts(Map<Integer, Double> discounts);
+}
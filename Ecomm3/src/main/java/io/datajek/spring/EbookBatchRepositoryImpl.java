@@ -0,0 +1,52 @@
+package io.datajek.spring;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Column updates sent as JDBC batches, one round trip per batchSize rows
+public class EbookBatchRepositoryImpl implements EbookBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${ebook.batch.size:500}")
+    private int batchSize;
+
+    @Autowired
+    public EbookBatchRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Integer> updatePrices(Map<Integer, Double> prices) {
+        return batchUpdate("update Ebook set price = ?, version = version + 1 where id = ?", prices);
+    }
+
+    @Override
+    public List<Integer> updateDiscounts(Map<Integer, Double> discounts) {
+        return batchUpdate("update Ebook set discount = ?, version = version + 1 where id = ?", discounts);
+    }
+
+    private List<Integer> batchUpdate(String sql, Map<Integer, Double> values) {
+        List<Map.Entry<Integer, Double>> rows = new ArrayList<>(values.entrySet());
+        int[][] counts = jdbcTemplate.batchUpdate(sql, rows, batchSize, (ps, row) -> {
+            ps.setDouble(1, row.getValue());
+            ps.setInt(2, row.getKey());
+        });
+        List<Integer> missing = new ArrayList<>();
+        int i = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                int id = rows.get(i++).getKey();
+                // SUCCESS_NO_INFO (-2) means the driver gave no count; only an explicit 0 is a miss
+                if (count == 0) {
+                    missing.add(id);
+                }
+            }
+        }
+        return missing;
+    }
+}
@@ -0,0 +1,41 @@
+package io.datajek.spring;
+
+import java.util.List;
+
+public class EbookBatchUpdateResult {
+
+	private int pricesUpdated;
+	private int discountsUpdated;
+	private List<Integer> notFound;
+
+	public EbookBatchUpdateResult(int pricesUpdated, int discountsUpdated, List<Integer> notFound) {
+		super();
+		this.pricesUpdated = pricesUpdated;
+		this.discountsUpdated = discountsUpdated;
+		this.notFound = notFound;
+	}
+
+	public int getPricesUpdated() {
+		return pricesUpdated;
+	}
+
+	public void setPricesUpdated(int pricesUpdated) {
+		this.pricesUpdated = pricesUpdated;
+	}
+
+	public int getDiscountsUpdated() {
+		return discountsUpdated;
+	}
+
+	public void setDiscountsUpdated(int discountsUpdated) {
+		this.discountsUpdated = discountsUpdated;
+	}
+
+	public List<Integer> getNotFound() {
+		return notFound;
+	}
+
+	public void setNotFound(List<Integer> notFound) {
+		this.notFound = notFound;
+	}
+}
@@ -0,0 +1,258 @@
+package io.datajek.spring;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Bounded read-through cache for single ebooks, evicting the least recently used entries once
+ * full and dropping entries older than the TTL. Nothing invalidates it implicitly: every write
+ * path in EbookService must call {@link #invalidate} for the ids it touches. Cached ebooks are
+ * shared between requests and must not be modified.
+ *
+ * Hits take no lock: entries live in a ConcurrentHashMap and carry their last access time.
+ * Once the cache overflows, one thread evicts the least recently used tenth in a single pass.
+ */
+@Component
+public class EbookCache {
+
+    // a hit refreshes the access time at most this often, so hot entries are not written on every read
+    private static final long ACCESS_GRANULARITY_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final ConcurrentHashMap<Integer, Entry> entries = new ConcurrentHashMap<>();
+
+    private final ReentrantLock evictionLock = new ReentrantLock();
+
+    // bumped on every invalidation; a load that overlapped one is not cached
+    private final AtomicLong writeSequence = new AtomicLong();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    public EbookCache(@Value("${ebook.cache.max-size:10000}") int maxSize,
+                      @Value("${ebook.cache.ttl-ms:60000}") long ttlMillis) {
+        this.maxSize = maxSize;
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos(ttlMillis);
+    }
+
+    /**
+     * Returns the cached ebook or loads, caches and returns it; loader exceptions are not cached.
+     * The loader gets the id with the write sequence seen before loading. A loader that shares
+     * its result with other callers must only share it under an equal key, or a caller arriving
+     * after an invalidation could be handed, and cache, the row from before the write.
+     */
+    public Ebook get(int id, Function<LoadKey, Ebook> loader) {
+        if (maxSize <= 0) {
+            return loader.apply(new LoadKey(id, writeSequence.get()));
+        }
+        Ebook cached = lookup(id);
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long sequence = writeSequence.get();
+        Ebook loaded = loader.apply(new LoadKey(id, sequence));
+        if (writeSequence.get() == sequence) {
+            Entry entry = new Entry(loaded, System.nanoTime());
+            entries.put(id, entry);
+            // an invalidation between the check and the put has already run its remove; undo ours
+            if (writeSequence.get() != sequence) {
+                entries.remove(id, entry);
+            } else if (entries.size() > maxSize) {
+                evict();
+            }
+        }
+        return loaded;
+    }
+
+    // The cached ebook without loading or counting a hit or miss, or null
+    public Ebook peek(int id) {
+        return maxSize <= 0 ? null : lookup(id);
+    }
+
+    private Ebook lookup(int id) {
+        Entry entry = entries.get(id);
+        if (entry == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        if (now - entry.loadedAt > ttlNanos) {
+            if (entries.remove(id, entry)) {
+                evictions.increment();
+            }
+            return null;
+        }
+        if (now - entry.lastAccess > ACCESS_GRANULARITY_NANOS) {
+            entry.lastAccess = now;
+        }
+        return entry.ebook;
+    }
+
+    // Drops the least recently used entries down to 90% of maxSize; only inserts get here, never hits
+    private void evict() {
+        evictionLock.lock();
+        try {
+            if (entries.size() <= maxSize) {
+                // another insert already made room
+                return;
+            }
+            int excess = entries.size() - (maxSize - maxSize / 10);
+            if (excess <= 0) {
+                return;
+            }
+            long[] accessed = new long[entries.size()];
+            int n = 0;
+            for (Entry entry : entries.values()) {
+                if (n == accessed.length) {
+                    break;
+                }
+                accessed[n++] = entry.lastAccess;
+            }
+            if (n == 0) {
+                return;
+            }
+            Arrays.sort(accessed, 0, n);
+            long cutoff = accessed[Math.min(excess, n) - 1];
+            Iterator<Map.Entry<Integer, Entry>> it = entries.entrySet().iterator();
+            while (excess > 0 && it.hasNext()) {
+                if (it.next().getValue().lastAccess <= cutoff) {
+                    it.remove();
+                    evictions.increment();
+                    excess--;
+                }
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Drops id now and again when the surrounding transaction completes, so a read that
+     * reloads the row before the commit cannot leave the old version cached.
+     */
+    public void invalidate(int id) {
+        remove(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    remove(id);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll(Collection<Integer> ids) {
+        for (Integer id : ids) {
+            invalidate(id);
+        }
+    }
+
+    // The sequence is bumped before the remove, so a load that caches after the remove sees it
+    private void remove(int id) {
+        writeSequence.incrementAndGet();
+        entries.remove(id);
+        invalidations.increment();
+    }
+
+    public void clear() {
+        writeSequence.incrementAndGet();
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public double getHitRatio() {
+        long h = hits.sum();
+        long total = h + misses.sum();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("size", size());
+        stats.put("maxSize", maxSize);
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("hitRatio", getHitRatio());
+        stats.put("evictions", evictions.sum());
+        stats.put("invalidations", invalidations.sum());
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return "EbookCache " + stats();
+    }
+
+    // An id with the write sequence its load started under; equal keys may share one load
+    public static final class LoadKey {
+
+        private final int id;
+        private final long sequence;
+
+        LoadKey(int id, long sequence) {
+            this.id = id;
+            this.sequence = sequence;
+        }
+
+        public int getId() {
+            return id;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof LoadKey)) {
+                return false;
+            }
+            LoadKey other = (LoadKey) o;
+            return id == other.id && sequence == other.sequence;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * id + Long.hashCode(sequence);
+        }
+
+        @Override
+        public String toString() {
+            return id + "@" + sequence;
+        }
+    }
+
+    private static final class Entry {
+
+        private final Ebook ebook;
+        private final long loadedAt;
+        private volatile long lastAccess;
+
+        Entry(Ebook ebook, long loadedAt) {
+            this.ebook = ebook;
+            this.loadedAt = loadedAt;
+            this.lastAccess = loadedAt;
+        }
+    }
+}
@@ -0,0 +1,285 @@
+package io.datajek.spring;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Optional read model for GET /ebooks and GET /ebooks/{id} (ebook.snapshot.enabled). Holds every
+ * ebook already encoded as JSON in an immutable snapshot, so reads are a lock-free array lookup
+ * with no JPA or Jackson work. Writes mark ids as changed; a background thread re-encodes just
+ * those ebooks and swaps in a new snapshot. Until that snapshot is in place the changed ids
+ * count as stale: {@link #ebook} and {@link #catalog} answer null for them, so callers read the
+ * database and never see bytes older than a committed write.
+ */
+@Component
+public class EbookCatalogSnapshot {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final EbookRepository ebookRepo;
+    private final ObjectMapper objectMapper;
+
+    @Value("${ebook.snapshot.enabled:false}")
+    private boolean enabled;
+
+    @Value("${ebook.snapshot.refresh-delay-ms:100}")
+    private long refreshDelayMillis;
+
+    // null until the first build, and always when disabled
+    private volatile Snapshot snapshot;
+
+    // stale ids, each with the request that last marked it; cleared only once a snapshot with that
+    // request applied is swapped in, so an id marked again mid-refresh stays stale
+    private final ConcurrentHashMap<Integer, Long> changed = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicBoolean refreshScheduled = new AtomicBoolean();
+
+    private ScheduledExecutorService refresher;
+
+    @Autowired
+    public EbookCatalogSnapshot(EbookRepository ebookRepo, ObjectMapper objectMapper) {
+        this.ebookRepo = ebookRepo;
+        this.objectMapper = objectMapper;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ebook-snapshot-refresher");
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (refresher != null) {
+            refresher.shutdownNow();
+        }
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void build() {
+        if (!enabled || snapshot != null) {
+            return;
+        }
+        TreeMap<Integer, Encoded> all = new TreeMap<>();
+        for (Ebook ebook : ebookRepo.findAll()) {
+            all.put(ebook.getId(), encode(ebook));
+        }
+        snapshot = Snapshot.EMPTY.apply(all);
+        logger.info("Built ebook snapshot with {} ebooks", all.size());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // JSON array of every ebook, or null when the snapshot is not in use or any ebook is stale
+    public Encoded catalog() {
+        Snapshot current = snapshot;
+        return current == null || !changed.isEmpty() ? null : current.catalog;
+    }
+
+    // JSON of one ebook, or null when the snapshot is not in use, does not have it yet or it is stale
+    public Encoded ebook(int id) {
+        Snapshot current = snapshot;
+        if (current == null || changed.containsKey(id)) {
+            return null;
+        }
+        int i = Arrays.binarySearch(current.ids, id);
+        return i < 0 ? null : current.json[i];
+    }
+
+    // Schedules a re-read of id once the current transaction commits
+    public void markChanged(int id) {
+        markChanged(Arrays.asList(id));
+    }
+
+    public void markChanged(Collection<Integer> ids) {
+        if (!enabled || ids.isEmpty()) {
+            return;
+        }
+        List<Integer> copy = new ArrayList<>(ids);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            enqueue(copy);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                enqueue(copy);
+            }
+        });
+    }
+
+    private void enqueue(Collection<Integer> ids) {
+        long request = requests.incrementAndGet();
+        for (Integer id : ids) {
+            changed.put(id, request);
+        }
+        scheduleRefresh();
+    }
+
+    // writes arriving within the delay share one refresh
+    private void scheduleRefresh() {
+        if (refreshScheduled.compareAndSet(false, true)) {
+            refresher.schedule(this::refresh, refreshDelayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void refresh() {
+        refreshScheduled.set(false);
+        Map<Integer, Long> taken = new HashMap<>(changed);
+        if (taken.isEmpty()) {
+            return;
+        }
+        if (snapshot == null) {
+            // build() has not run yet and will read these rows anyway
+            forget(taken);
+            return;
+        }
+        try {
+            // a changed id that no longer loads was deleted
+            TreeMap<Integer, Encoded> updates = new TreeMap<>();
+            for (Integer id : taken.keySet()) {
+                updates.put(id, null);
+            }
+            for (Ebook ebook : ebookRepo.findAllById(taken.keySet())) {
+                updates.put(ebook.getId(), encode(ebook));
+            }
+            snapshot = snapshot.apply(updates);
+            forget(taken);
+        } catch (RuntimeException ex) {
+            // keep serving the previous snapshot for the others; these stay stale and are retried
+            logger.error("Failed to refresh ebook snapshot for ids {}", taken.keySet(), ex);
+            scheduleRefresh();
+        }
+    }
+
+    private void forget(Map<Integer, Long> taken) {
+        for (Map.Entry<Integer, Long> entry : taken.entrySet()) {
+            changed.remove(entry.getKey(), entry.getValue());
+        }
+    }
+
+    private Encoded encode(Ebook ebook) {
+        try {
+            return new Encoded(objectMapper.writeValueAsBytes(ebook), EbookETags.of(ebook));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Cannot encode ebook " + ebook.getId(), ex);
+        }
+    }
+
+    // Encoded JSON with the ETag of exactly those bytes
+    public static final class Encoded {
+
+        private final byte[] json;
+        private final String eTag;
+
+        Encoded(byte[] json, String eTag) {
+            this.json = json;
+            this.eTag = eTag;
+        }
+
+        public byte[] getJson() {
+            return json;
+        }
+
+        public String getETag() {
+            return eTag;
+        }
+    }
+
+    // Sorted ids with their encoded JSON, plus the whole catalog as one JSON array
+    private static final class Snapshot {
+
+        // tags the catalog bytes; unique across restarts
+        private static final String EPOCH = Long.toHexString(System.currentTimeMillis());
+
+        static final Snapshot EMPTY = new Snapshot(new int[0], new Encoded[0], 0);
+
+        final int[] ids;
+        final Encoded[] json;
+        final long generation;
+        final Encoded catalog;
+
+        private Snapshot(int[] ids, Encoded[] json, long generation) {
+            this.ids = ids;
+            this.json = json;
+            this.generation = generation;
+            this.catalog = new Encoded(concat(json), "\"s" + EPOCH + "-" + generation + "\"");
+        }
+
+        // Merges sorted upserts (null value = delete) into a new snapshot; this one is unchanged
+        Snapshot apply(TreeMap<Integer, Encoded> updates) {
+            int[] newIds = new int[ids.length + updates.size()];
+            Encoded[] newJson = new Encoded[newIds.length];
+            int n = 0;
+            int i = 0;
+            for (Map.Entry<Integer, Encoded> update : updates.entrySet()) {
+                int id = update.getKey();
+                while (i < ids.length && ids[i] < id) {
+                    newIds[n] = ids[i];
+                    newJson[n++] = json[i++];
+                }
+                if (i < ids.length && ids[i] == id) {
+                    i++;
+                }
+                if (update.getValue() != null) {
+                    newIds[n] = id;
+                    newJson[n++] = update.getValue();
+                }
+            }
+            while (i < ids.length) {
+                newIds[n] = ids[i];
+                newJson[n++] = json[i++];
+            }
+            return new Snapshot(Arrays.copyOf(newIds, n), Arrays.copyOf(newJson, n), generation + 1);
+        }
+
+        private static byte[] concat(Encoded[] json) {
+            int size = 2 + Math.max(0, json.length - 1);
+            for (Encoded one : json) {
+                size += one.json.length;
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+            out.write('[');
+            for (int i = 0; i < json.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.write(json[i].json, 0, json[i].json.length);
+            }
+            out.write(']');
+            return out.toByteArray();
+        }
+    }
+}
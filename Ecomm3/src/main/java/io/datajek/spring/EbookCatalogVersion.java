@@ -0,0 +1,34 @@
+package io.datajek.spring;
+
+import java.util.concurrent.atomic.AtomicLong;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Change counter for the whole catalog, the source of the GET /ebooks ETag. Every write bumps it
+ * at once and again when its transaction completes, so a listing read while the write was in
+ * flight never carries the final tag. The startup time keeps tags unique across restarts.
+ */
+@Component
+public class EbookCatalogVersion {
+
+    private final long epoch = System.currentTimeMillis();
+    private final AtomicLong counter = new AtomicLong();
+
+    public void changed() {
+        counter.incrementAndGet();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    counter.incrementAndGet();
+                }
+            });
+        }
+    }
+
+    public String eTag() {
+        return "\"c" + Long.toHexString(epoch) + "-" + counter.get() + "\"";
+    }
+}
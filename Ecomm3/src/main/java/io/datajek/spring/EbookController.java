@@ -1,8 +1,15 @@
 package io.datajek.spring;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -10,22 +17,70 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+// Handlers run on the servlet thread; EbookAsyncController replaces this one when ebook.async.enabled is set
 @RestController
+@ConditionalOnProperty(name = "ebook.async.enabled", havingValue = "false", matchIfMissing = true)
 public class EbookController {
 
+	final EbookService service;
+
 	@Autowired
-	EbookService service;
+	public EbookController(EbookService service) {
+		this.service = service;
+	}
 
+	// Served from the pre-encoded snapshot when ebook.snapshot.enabled is set; otherwise
+	// If-None-Match is answered from the catalog change counter before anything is loaded
 	@GetMapping("/ebooks")
-	public List<Ebook> allEbooks() {
-		return service.getAllEbooks();   
+	public ResponseEntity<?> allEbooks(@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch) {
+		ResponseEntity<?> known = knownCatalog(ifNoneMatch);
+		return known != null ? known : loadCatalog();
+	}
+
+	// Keyset pagination, e.g. /ebooks?limit=50&sort=publishDate&fields=id,title&cursor=...
+	@GetMapping(value = "/ebooks", params = "limit")
+	public EbookPage ebookPage(@RequestParam int limit,
+							   @RequestParam(required = false) String cursor,
+							   @RequestParam(defaultValue = "id") String sort,
+							   @RequestParam(required = false) String fields) {
+		return service.getEbookPage(sort, cursor, limit, fields);
+	}
+
+	// Type-ahead, e.g. /ebooks/search?q=effective jav
+	@GetMapping("/ebooks/search")
+	public List<Ebook> searchEbooks(@RequestParam String q, @RequestParam(defaultValue = "20") int limit) {
+		return service.searchEbooks(q, limit);
+	}
+
+	@GetMapping("/ebooks/cache/stats")
+	public Map<String, Object> cacheStats() {
+		return service.getCacheStats();
 	}
 
+	@GetMapping("/ebooks/async/stats")
+	public Map<String, Object> asyncStats() {
+		return Collections.singletonMap("enabled", false);
+	}
+
+	// One JSON object per line, streamed from a database cursor
+	@GetMapping(value = "/ebooks/export", produces = "application/x-ndjson")
+	public StreamingResponseBody exportEbooks(WebRequest request) {
+		EbookAsyncConfig.allowLongRequest(request);
+		return service::exportEbooks;
+	}
+
+	// Snapshot and cache answer If-None-Match without JPA; otherwise the 304 at least skips serialization
     @GetMapping("/ebooks/{id}")
-	public Ebook getEbook(@PathVariable int id){
-		return service.getEbook(id);
+	public ResponseEntity<?> getEbook(@PathVariable int id,
+			@RequestHeader(value = "If-None-Match", required = false) String ifNoneMatch){
+		ResponseEntity<?> known = knownEbook(id, ifNoneMatch);
+		return known != null ? known : loadEbook(id, ifNoneMatch);
 	}
 
     @PostMapping("/ebooks")
@@ -34,14 +89,22 @@ public class EbookController {
 		return service.addEbook(ebook);
 	}
 
+	// JSON array or NDJSON; the body is parsed as it arrives, not bound up front
+	@PostMapping("/ebooks/bulk")
+	public EbookImportResult importEbooks(InputStream body) throws IOException {
+		return service.importEbooks(body);
+	}
+
     @PutMapping("/ebooks/{id}")
-	public Ebook updateEbook(@PathVariable int id, @RequestBody Ebook ebook) {
-		return service.updateEbook(id, ebook);
+	public ResponseEntity<Ebook> updateEbook(@PathVariable int id, @RequestBody Ebook ebook,
+			@RequestHeader(value = "If-Match", required = false) String ifMatch) {
+		return withETag(service.updateEbook(id, ebook, ifMatch));
 	}
 
     @PatchMapping("/ebooks/{id}")
-	public Ebook partialUpdate(@PathVariable int id, @RequestBody Map<String, Object> ebookPatch) {
-		return service.patch(id, ebookPatch);
+	public ResponseEntity<Ebook> partialUpdate(@PathVariable int id, @RequestBody Map<String, Object> ebookPatch,
+			@RequestHeader(value = "If-Match", required = false) String ifMatch) {
+		return withETag(service.patch(id, ebookPatch, ifMatch));
 	}
 
 	@PatchMapping("/ebooks/{id}/price")
@@ -54,10 +117,77 @@ public class EbookController {
 		service.updateDiscount(id,discount);
 	}
 
+	// Body: {"prices": {"1": 19.99}, "discounts": {"2": 10}}
+	@PatchMapping("/ebooks/prices")
+	public EbookBatchUpdateResult updatePrices(@RequestBody EbookPriceUpdates updates){
+		return service.updatePrices(updates);
+	}
+
+	// Body: [{"id": 1, "at": "2024-01-31T23:59:59Z"}, ...]; answers come back in the same order
+	@PostMapping("/ebooks/prices/as-of")
+	public List<EbookPricePoint> pricesAsOf(@RequestBody List<EbookPriceQuery> queries){
+		return service.getPricesAsOf(queries);
+	}
+
     @DeleteMapping("/ebooks/{id}")
 	public void deleteEbook(@PathVariable int id) {
 		service.deleteEbook(id);
 	}
 
+	// The catalog response if it is known without loading the list, otherwise null
+	ResponseEntity<?> knownCatalog(String ifNoneMatch) {
+		EbookCatalogSnapshot.Encoded catalog = service.getEncodedCatalog();
+		if (catalog != null) {
+			return encoded(catalog, ifNoneMatch);
+		}
+		String etag = service.getCatalogETag();
+		if (ifNoneMatch != null && EbookETags.noneMatchHit(ifNoneMatch, etag)) {
+			return notModified(etag);
+		}
+		return null;
+	}
+
+	ResponseEntity<?> loadCatalog() {
+		String etag = service.getCatalogETag();
+		return ResponseEntity.ok().eTag(etag).body(service.getAllEbooks());
+	}
+
+	// The response for id if snapshot or cache has it, otherwise null
+	ResponseEntity<?> knownEbook(int id, String ifNoneMatch) {
+		EbookCatalogSnapshot.Encoded encoded = service.getEncodedEbook(id);
+		if (encoded != null) {
+			return encoded(encoded, ifNoneMatch);
+		}
+		if (ifNoneMatch != null) {
+			String known = service.peekEbookETag(id);
+			if (known != null && EbookETags.noneMatchHit(ifNoneMatch, known)) {
+				return notModified(known);
+			}
+		}
+		return null;
+	}
 
-}
\ No newline at end of file
+	ResponseEntity<?> loadEbook(int id, String ifNoneMatch) {
+		Ebook ebook = service.getEbook(id);
+		String etag = EbookETags.of(ebook);
+		if (ifNoneMatch != null && EbookETags.noneMatchHit(ifNoneMatch, etag)) {
+			return notModified(etag);
+		}
+		return ResponseEntity.ok().eTag(etag).body(ebook);
+	}
+
+	private static ResponseEntity<?> encoded(EbookCatalogSnapshot.Encoded encoded, String ifNoneMatch) {
+		if (ifNoneMatch != null && EbookETags.noneMatchHit(ifNoneMatch, encoded.getETag())) {
+			return notModified(encoded.getETag());
+		}
+		return ResponseEntity.ok().eTag(encoded.getETag()).contentType(MediaType.APPLICATION_JSON).body(encoded.getJson());
+	}
+
+	private static ResponseEntity<?> notModified(String etag) {
+		return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+	}
+
+	private static ResponseEntity<Ebook> withETag(Ebook ebook) {
+		return ResponseEntity.ok().eTag(EbookETags.of(ebook)).body(ebook);
+	}
+}
@@ -8,6 +8,7 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 
 import javax.servlet.http.HttpServletRequest;
 import java.time.ZonedDateTime;
+import java.util.concurrent.RejectedExecutionException;
 
 @ControllerAdvice
 public class EbookControllerAdviser {
@@ -18,6 +19,30 @@ public class EbookControllerAdviser {
         return new ResponseEntity<>(error, HttpStatus.NOT_FOUND);
     };
 
+    @ExceptionHandler
+    public ResponseEntity<EbookErrorResponse> ebookLoadTimeoutHandler(EbookLoadTimeoutException ex, HttpServletRequest req){
+        EbookErrorResponse error = new EbookErrorResponse(ZonedDateTime.now(), HttpStatus.SERVICE_UNAVAILABLE.value(), req.getRequestURI(), ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    };
+
+    @ExceptionHandler
+    public ResponseEntity<EbookErrorResponse> preconditionFailedHandler(EbookPreconditionFailedException ex, HttpServletRequest req){
+        EbookErrorResponse error = new EbookErrorResponse(ZonedDateTime.now(), HttpStatus.PRECONDITION_FAILED.value(), req.getRequestURI(), ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.PRECONDITION_FAILED);
+    };
+
+    @ExceptionHandler
+    public ResponseEntity<EbookErrorResponse> updateConflictHandler(EbookUpdateConflictException ex, HttpServletRequest req){
+        EbookErrorResponse error = new EbookErrorResponse(ZonedDateTime.now(), HttpStatus.CONFLICT.value(), req.getRequestURI(), ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.CONFLICT);
+    };
+
+    @ExceptionHandler
+    public ResponseEntity<EbookErrorResponse> rejectedHandler(RejectedExecutionException ex, HttpServletRequest req){
+        EbookErrorResponse error = new EbookErrorResponse(ZonedDateTime.now(), HttpStatus.SERVICE_UNAVAILABLE.value(), req.getRequestURI(), ex.getMessage());
+        return new ResponseEntity<>(error, HttpStatus.SERVICE_UNAVAILABLE);
+    };
+
     @ExceptionHandler
     public ResponseEntity<EbookErrorResponse> genericHandler(Exception ex, HttpServletRequest req){
         EbookErrorResponse error = new EbookErrorResponse(ZonedDateTime.now(), HttpStatus.BAD_REQUEST.value(), req.getRequestURI(), ex.getMessage());
@@ -0,0 +1,89 @@
+package io.datajek.spring;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated listing: the sort keys of the last ebook already returned.
+ * Serialized as an opaque URL-safe token so clients just echo it back.
+ */
+public final class EbookCursor {
+
+    public enum Sort {
+        ID("id"), PUBLISH_DATE("publishDate");
+
+        private final String field;
+
+        Sort(String field) {
+            this.field = field;
+        }
+
+        public String getField() {
+            return field;
+        }
+
+        public static Sort of(String field) {
+            for (Sort sort : values()) {
+                if (sort.field.equals(field)) {
+                    return sort;
+                }
+            }
+            throw new IllegalArgumentException("Cannot sort ebooks by: " + field);
+        }
+    }
+
+    private final Sort sort;
+    // null lastId means the first page
+    private final Integer lastId;
+    private final Date lastPublishDate;
+
+    private EbookCursor(Sort sort, Integer lastId, Date lastPublishDate) {
+        this.sort = sort;
+        this.lastId = lastId;
+        this.lastPublishDate = lastPublishDate;
+    }
+
+    public static EbookCursor start(Sort sort) {
+        return new EbookCursor(sort, null, null);
+    }
+
+    public static EbookCursor after(Sort sort, int lastId, Date lastPublishDate) {
+        return new EbookCursor(sort, lastId, lastPublishDate);
+    }
+
+    public boolean isStart() {
+        return lastId == null;
+    }
+
+    public Sort getSort() {
+        return sort;
+    }
+
+    public Integer getLastId() {
+        return lastId;
+    }
+
+    public Date getLastPublishDate() {
+        return lastPublishDate;
+    }
+
+    public String encode() {
+        String raw = sort == Sort.ID ? sort.field + ":" + lastId : sort.field + ":" + lastPublishDate + ":" + lastId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Malformed tokens surface as IllegalArgumentException
+    public static EbookCursor decode(String token) {
+        String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        String[] parts = raw.split(":");
+        Sort sort = Sort.of(parts[0]);
+        if (sort == Sort.ID && parts.length == 2) {
+            return after(sort, Integer.parseInt(parts[1]), null);
+        }
+        if (sort == Sort.PUBLISH_DATE && parts.length == 3) {
+            return after(sort, Integer.parseInt(parts[2]), Date.valueOf(parts[1]));
+        }
+        throw new IllegalArgumentException("Invalid cursor: " + token);
+    }
+}
@@ -0,0 +1,210 @@
+package io.datajek.spring;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Write-behind buffer for discount updates (ebook.discount.write-behind). Updates are coalesced
+ * per id, so only the latest value for each id is written, in one JDBC batch every
+ * ebook.discount.flush-ms. Pending values are visible through {@link #pending} so reads see
+ * their own writes. The buffer is flushed on shutdown; a crash loses at most one flush window.
+ */
+@Component
+public class EbookDiscountBuffer {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final EbookRepository ebookRepo;
+    private final TransactionTemplate transactionTemplate;
+    private final EbookCache ebookCache;
+    private final EbookCatalogSnapshot snapshot;
+    private final EbookCatalogVersion catalogVersion;
+    private final EbookPriceHistory priceHistory;
+
+    @Value("${ebook.discount.write-behind:false}")
+    private boolean enabled;
+
+    @Value("${ebook.discount.flush-ms:500}")
+    private long flushMillis;
+
+    private final ConcurrentHashMap<Integer, Double> pending = new ConcurrentHashMap<>();
+
+    // one flush at a time, whether periodic, per id or at shutdown; batches are copied under it
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private final LongAdder buffered = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+
+    private ScheduledExecutorService flusher;
+
+    @Autowired
+    public EbookDiscountBuffer(EbookRepository ebookRepo, PlatformTransactionManager transactionManager,
+                               EbookCache ebookCache, EbookCatalogSnapshot snapshot, EbookCatalogVersion catalogVersion,
+                               EbookPriceHistory priceHistory) {
+        this.ebookRepo = ebookRepo;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.ebookCache = ebookCache;
+        this.snapshot = snapshot;
+        this.catalogVersion = catalogVersion;
+        this.priceHistory = priceHistory;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (enabled) {
+            flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ebook-discount-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (flusher != null) {
+            flusher.shutdown();
+        }
+        flush();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    // Replaces any pending discount for id; written on the next flush
+    public void put(int id, double discount) {
+        pending.put(id, discount);
+        buffered.increment();
+        // reads overlay the pending value, so listings change now
+        catalogVersion.changed();
+    }
+
+    // The not yet written discount for id, or null
+    public Double pending(int id) {
+        return pending.isEmpty() ? null : pending.get(id);
+    }
+
+    public boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    // Drops pending values that a later write makes obsolete, e.g. a delete or a batch update.
+    // Waits out a flush in progress, so it cannot land after the caller's write.
+    public void discard(Collection<Integer> ids) {
+        flushLock.lock();
+        try {
+            for (Integer id : ids) {
+                pending.remove(id);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Writes everything pending
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            // copied under the lock, so no older batch can be written after this one
+            if (!pending.isEmpty()) {
+                write(new HashMap<>(pending));
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    // Writes the pending value for id, if any, before a write that reads the row first
+    public void flush(int id) {
+        if (pending.containsKey(id)) {
+            flush(id, () -> { });
+        }
+    }
+
+    // Runs check while no flush can change the row, then writes the value pending for id.
+    // Returns the discount written, or null if none was pending.
+    public Double flush(int id, Runnable check) {
+        flushLock.lock();
+        try {
+            check.run();
+            Double discount = pending.get(id);
+            if (discount != null) {
+                Map<Integer, Double> one = new HashMap<>();
+                one.put(id, discount);
+                write(one);
+            }
+            return discount;
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException ex) {
+            // values stay pending and are retried on the next run
+            logger.error("Failed to flush {} pending discounts", pending.size(), ex);
+        }
+    }
+
+    // Callers hold flushLock and took batch from pending while holding it
+    private void write(Map<Integer, Double> batch) {
+        // history takes the flush time as effective_from, at most flush-ms after the PATCH
+        List<Integer> missing = transactionTemplate.execute(status -> {
+            List<Integer> deleted = ebookRepo.updateDiscounts(batch);
+            priceHistory.recordCurrent(batch.keySet());
+            return deleted;
+        });
+        if (!missing.isEmpty()) {
+            // ids the filter let through or that were deleted since; PATCH never checks the row
+            logger.warn("Dropped pending discounts for missing ebooks {}", missing);
+            dropped.add(missing.size());
+        }
+        // invalidate before un-pending, so a read never sees the cached pre-update row alone
+        ebookCache.invalidateAll(batch.keySet());
+        // likewise stale in the snapshot until it is rebuilt, so reads fall back to the new rows
+        snapshot.markChanged(batch.keySet());
+        // the flushed rows carry a new version
+        catalogVersion.changed();
+        for (Map.Entry<Integer, Double> entry : batch.entrySet()) {
+            // keeps a value that was replaced while this batch was being written
+            pending.remove(entry.getKey(), entry.getValue());
+        }
+        written.add(batch.size() - missing.size());
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("pending", pending.size());
+        stats.put("buffered", buffered.sum());
+        stats.put("written", written.sum());
+        stats.put("dropped", dropped.sum());
+        return stats;
+    }
+}
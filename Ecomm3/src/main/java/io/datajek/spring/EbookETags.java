@@ -0,0 +1,45 @@
+package io.datajek.spring;
+
+import java.util.Objects;
+
+/**
+ * Strong entity tags for ebooks: the @Version column plus a hash of the served fields, so a
+ * representation that differs without a version bump (a buffered discount) gets its own tag.
+ */
+public final class EbookETags {
+
+    private EbookETags() {
+    }
+
+    public static String of(Ebook ebook) {
+        int hash = Objects.hash(ebook.getTitle(), ebook.getAuthor(), ebook.getPrice(),
+                ebook.getPublishDate(), ebook.getDiscount());
+        return "\"" + ebook.getVersion() + "-" + Integer.toHexString(hash) + "\"";
+    }
+
+    // If-Match uses strong comparison: "*" or an exact tag matches, weak tags never do
+    public static boolean matches(String ifMatch, Ebook ebook) {
+        String current = of(ebook);
+        for (String tag : ifMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.equals("*") || candidate.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // If-None-Match uses weak comparison: the W/ prefix is ignored
+    public static boolean noneMatchHit(String ifNoneMatch, String current) {
+        for (String tag : ifNoneMatch.split(",")) {
+            String candidate = tag.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
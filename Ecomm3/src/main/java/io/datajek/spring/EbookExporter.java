@@ -0,0 +1,96 @@
+package io.datajek.spring;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import javax.sql.DataSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * Writes the catalog as newline-delimited JSON, one ebook per line, straight from a JDBC
+ * cursor. Rows are never collected or mapped to entities, so heap use does not grow with
+ * the number of ebooks. Field names and the date format match the Ebook JSON.
+ */
+@Component
+public class EbookExporter {
+
+    private static final String EXPORT_SQL =
+            "select id, title, publisher, price, publish_date, discount, version from Ebook order by id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Root values are separated by our own '\n'; the servlet stream is closed by the container
+    private final JsonFactory jsonFactory = new JsonFactory()
+            .setRootValueSeparator(null)
+            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+    @Value("${ebook.export.flush-rows:500}")
+    private int flushRows;
+
+    @Autowired
+    public EbookExporter(DataSource dataSource, @Value("${ebook.export.fetch-size:1000}") int fetchSize) {
+        // own template so the fetch size does not leak into other queries
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(fetchSize);
+    }
+
+    // Returns the number of ebooks written
+    public long writeNdjson(OutputStream out) throws IOException {
+        try (JsonGenerator generator = jsonFactory.createGenerator(out)) {
+            NdjsonRowWriter writer = new NdjsonRowWriter(generator);
+            try {
+                jdbcTemplate.query(EXPORT_SQL, writer);
+            } catch (UncheckedIOException ex) {
+                // client went away mid-export
+                throw ex.getCause();
+            }
+            return writer.rows;
+        }
+    }
+
+    private final class NdjsonRowWriter implements RowCallbackHandler {
+
+        private final JsonGenerator generator;
+        private long rows;
+
+        NdjsonRowWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            try {
+                generator.writeStartObject();
+                generator.writeNumberField("id", rs.getInt(1));
+                generator.writeStringField("title", rs.getString(2));
+                generator.writeStringField("author", rs.getString(3));
+                generator.writeNumberField("price", rs.getDouble(4));
+                Date publishDate = rs.getDate(5);
+                if (publishDate == null) {
+                    generator.writeNullField("publishDate");
+                } else {
+                    generator.writeStringField("publishDate", publishDate.toString());
+                }
+                generator.writeNumberField("discount", rs.getDouble(6));
+                generator.writeNumberField("version", rs.getInt(7));
+                generator.writeEndObject();
+                generator.writeRaw('\n');
+                // first row goes out at once, then one flush per chunk
+                if (++rows == 1 || rows % flushRows == 0) {
+                    generator.flush();
+                }
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        }
+    }
+}
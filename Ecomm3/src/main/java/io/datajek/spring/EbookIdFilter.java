@@ -0,0 +1,136 @@
+package io.datajek.spring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Counting Bloom filter over existing ebook ids. {@link #mightExist} never answers false for an
+ * id that exists, so a false answer is a safe 404 without a query. Counters instead of bits
+ * let deletes be removed again.
+ *
+ * <p>Ids are added as soon as a row is written (before commit) and removed only after a delete
+ * commits; a rollback therefore leaves at most a false positive, never a false negative.
+ */
+@Component
+public class EbookIdFilter {
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final int expectedIds;
+    private final int hashCount;
+    private final AtomicIntegerArray counters;
+
+    // until the startup load finishes every id might exist, and removals are ignored
+    private volatile boolean ready;
+
+    private final AtomicLong ids = new AtomicLong();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder passed = new LongAdder();
+
+    @Autowired
+    public EbookIdFilter(JdbcTemplate jdbcTemplate,
+                         @Value("${ebook.id-filter.expected-ids:100000}") int expectedIds,
+                         @Value("${ebook.id-filter.fpp:0.01}") double falsePositiveRate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.expectedIds = expectedIds;
+        // standard sizing: m = -n ln p / (ln 2)^2, k = m/n ln 2
+        int size = (int) Math.ceil(-expectedIds * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        this.counters = new AtomicIntegerArray(Math.max(size, 64));
+        this.hashCount = Math.max(1, (int) Math.round((double) counters.length() / expectedIds * Math.log(2)));
+    }
+
+    @EventListener(ContextRefreshedEvent.class)
+    public void load() {
+        if (ready) {
+            return;
+        }
+        jdbcTemplate.query("select id from Ebook", rs -> { add(rs.getInt(1)); });
+        ready = true;
+        if (ids.get() > expectedIds) {
+            logger.warn("{} ebook ids exceed ebook.id-filter.expected-ids={}; more misses will reach the database",
+                    ids.get(), expectedIds);
+        }
+    }
+
+    public boolean mightExist(int id) {
+        if (!ready) {
+            return true;
+        }
+        long hash = mix(id);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            if (counters.get(index(h1 + i * h2)) == 0) {
+                rejected.increment();
+                return false;
+            }
+        }
+        passed.increment();
+        return true;
+    }
+
+    public void add(int id) {
+        long hash = mix(id);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            counters.incrementAndGet(index(h1 + i * h2));
+        }
+        ids.incrementAndGet();
+    }
+
+    // Only for ids that were added and whose delete has committed
+    public void remove(int id) {
+        if (!ready) {
+            return;
+        }
+        long hash = mix(id);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 0; i < hashCount; i++) {
+            int slot = index(h1 + i * h2);
+            // never below zero, or an unrelated id sharing the slot would become a false negative
+            counters.getAndUpdate(slot, c -> c > 0 ? c - 1 : 0);
+        }
+        ids.decrementAndGet();
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("ready", ready);
+        stats.put("ids", ids.get());
+        stats.put("counters", counters.length());
+        stats.put("hashes", hashCount);
+        stats.put("rejected", rejected.sum());
+        stats.put("passed", passed.sum());
+        return stats;
+    }
+
+    private int index(int combinedHash) {
+        return (combinedHash & Integer.MAX_VALUE) % counters.length();
+    }
+
+    // MurmurHash3 fmix64; the halves serve as the two base hashes (Kirsch-Mitzenmacher)
+    private static long mix(int id) {
+        long h = id;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
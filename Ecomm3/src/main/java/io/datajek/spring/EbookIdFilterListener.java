@@ -0,0 +1,38 @@
+package io.datajek.spring;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Adds new ids to EbookIdFilter at once, removes deleted ids only after the delete commits
+public class EbookIdFilterListener {
+
+    private final EbookIdFilter idFilter;
+
+    @Autowired
+    public EbookIdFilterListener(EbookIdFilter idFilter) {
+        this.idFilter = idFilter;
+    }
+
+    @PostPersist
+    public void onPersist(Ebook ebook) {
+        idFilter.add(ebook.getId());
+    }
+
+    @PostRemove
+    public void onRemove(Ebook ebook) {
+        int id = ebook.getId();
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            idFilter.remove(id);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                idFilter.remove(id);
+            }
+        });
+    }
+}
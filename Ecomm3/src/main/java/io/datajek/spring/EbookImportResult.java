@@ -0,0 +1,72 @@
+package io.datajek.spring;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Outcome of POST /ebooks/bulk; error is set when the body could not be read to the end
+public class EbookImportResult {
+
+	private int imported;
+	private int failed;
+	private List<Chunk> chunks = new ArrayList<>();
+	private String error;
+
+	void addChunk(Chunk chunk) {
+		chunks.add(chunk);
+		imported += chunk.getImported();
+		failed += chunk.getFailed();
+	}
+
+	public int getImported() {
+		return imported;
+	}
+
+	public int getFailed() {
+		return failed;
+	}
+
+	public List<Chunk> getChunks() {
+		return chunks;
+	}
+
+	public String getError() {
+		return error;
+	}
+
+	public void setError(String error) {
+		this.error = error;
+	}
+
+	// One transaction's worth of records; a failed batch rolls back and counts the whole chunk as failed
+	public static class Chunk {
+
+		private int index;
+		private int imported;
+		private int failed;
+		private List<String> errors;
+
+		public Chunk(int index, int imported, int failed, List<String> errors) {
+			super();
+			this.index = index;
+			this.imported = imported;
+			this.failed = failed;
+			this.errors = errors;
+		}
+
+		public int getIndex() {
+			return index;
+		}
+
+		public int getImported() {
+			return imported;
+		}
+
+		public int getFailed() {
+			return failed;
+		}
+
+		public List<String> getErrors() {
+			return errors;
+		}
+	}
+}
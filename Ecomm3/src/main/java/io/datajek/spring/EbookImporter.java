@@ -0,0 +1,186 @@
+package io.datajek.spring;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Imports ebooks from a JSON array or an NDJSON stream without reading the whole body.
+ * Records are parsed one at a time and inserted with JDBC batches, one transaction per
+ * chunk, so memory use is bounded by the chunk size.
+ */
+@Component
+public class EbookImporter {
+
+    private static final String INSERT_SQL =
+            "insert into Ebook (title, publisher, price, publish_date, discount) values (?, ?, ?, ?, ?)";
+
+    private static final int MAX_ERRORS_PER_CHUNK = 10;
+
+    private final ObjectMapper objectMapper;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EbookSearchIndex searchIndex;
+    private final EbookIdFilter idFilter;
+    private final EbookCatalogSnapshot snapshot;
+    private final EbookCatalogVersion catalogVersion;
+    private final EbookPriceHistory priceHistory;
+
+    @Value("${ebook.import.chunk-size:1000}")
+    private int chunkSize;
+
+    @Autowired
+    public EbookImporter(ObjectMapper objectMapper, JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                         EbookSearchIndex searchIndex, EbookIdFilter idFilter, EbookCatalogSnapshot snapshot,
+                         EbookCatalogVersion catalogVersion, EbookPriceHistory priceHistory) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.searchIndex = searchIndex;
+        this.idFilter = idFilter;
+        this.snapshot = snapshot;
+        this.catalogVersion = catalogVersion;
+        this.priceHistory = priceHistory;
+    }
+
+    public EbookImportResult importEbooks(InputStream body) throws IOException {
+        EbookImportResult result = new EbookImportResult();
+        List<Ebook> pending = new ArrayList<>(chunkSize);
+        List<String> errors = new ArrayList<>();
+        int failed = 0;
+        int record = 0;
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            JsonToken token = parser.nextToken();
+            // a top-level array is unwrapped; otherwise the body is a sequence of objects
+            boolean array = token == JsonToken.START_ARRAY;
+            if (array) {
+                token = parser.nextToken();
+            }
+            try {
+                while (token != null && token != JsonToken.END_ARRAY) {
+                    record++;
+                    JsonNode node = objectMapper.readTree(parser);
+                    String problem = null;
+                    try {
+                        Ebook ebook = node.isObject() ? objectMapper.treeToValue(node, Ebook.class) : null;
+                        problem = ebook == null ? "not a JSON object" : validate(ebook);
+                        if (problem == null) {
+                            pending.add(ebook);
+                        }
+                    } catch (IOException ex) {
+                        problem = ex.getMessage();
+                    }
+                    if (problem != null) {
+                        failed++;
+                        if (errors.size() < MAX_ERRORS_PER_CHUNK) {
+                            errors.add("record " + record + ": " + problem);
+                        }
+                    }
+                    if (pending.size() + failed == chunkSize) {
+                        result.addChunk(writeChunk(result.getChunks().size(), pending, failed, errors));
+                        pending = new ArrayList<>(chunkSize);
+                        errors = new ArrayList<>();
+                        failed = 0;
+                    }
+                    token = parser.nextToken();
+                }
+            } catch (IOException ex) {
+                // malformed JSON: keep what was parsed so far and report where reading stopped
+                result.setError("Stopped at record " + record + ": " + ex.getMessage());
+            }
+        }
+        if (pending.size() + failed > 0) {
+            result.addChunk(writeChunk(result.getChunks().size(), pending, failed, errors));
+        }
+        return result;
+    }
+
+    private EbookImportResult.Chunk writeChunk(int index, List<Ebook> ebooks, int failed, List<String> errors) {
+        if (ebooks.isEmpty()) {
+            return new EbookImportResult.Chunk(index, 0, failed, errors);
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                List<Integer> newIds = insert(ebooks);
+                priceHistory.record(ebooks);
+                // ids must be in the filter before the rows become visible
+                for (Integer id : newIds) {
+                    idFilter.add(id);
+                }
+                snapshot.markChanged(newIds);
+                catalogVersion.changed();
+            });
+            // JDBC inserts bypass the entity listeners
+            for (Ebook ebook : ebooks) {
+                searchIndex.index(ebook.getId(), ebook.getTitle(), ebook.getAuthor());
+            }
+            return new EbookImportResult.Chunk(index, ebooks.size(), failed, errors);
+        } catch (DataAccessException ex) {
+            errors.add("chunk rolled back: " + ex.getMostSpecificCause().getMessage());
+            return new EbookImportResult.Chunk(index, 0, failed + ebooks.size(), errors);
+        }
+    }
+
+    // One JDBC batch; sets each ebook's id from the generated keys, so only this chunk's rows are
+    // picked up, never rows another request inserts at the same time
+    private List<Integer> insert(List<Ebook> ebooks) {
+        List<Integer> ids = jdbcTemplate.execute((ConnectionCallback<List<Integer>>) con -> {
+            try (PreparedStatement ps = con.prepareStatement(INSERT_SQL, new String[] {"id"})) {
+                for (Ebook ebook : ebooks) {
+                    ps.setString(1, ebook.getTitle());
+                    ps.setString(2, ebook.getAuthor());
+                    ps.setDouble(3, ebook.getPrice());
+                    ps.setDate(4, ebook.getPublishDate());
+                    ps.setDouble(5, ebook.getDiscount());
+                    ps.addBatch();
+                }
+                ps.executeBatch();
+                List<Integer> keys = new ArrayList<>(ebooks.size());
+                try (ResultSet rs = ps.getGeneratedKeys()) {
+                    while (rs.next()) {
+                        keys.add(rs.getInt(1));
+                    }
+                }
+                return keys;
+            }
+        });
+        if (ids.size() != ebooks.size()) {
+            throw new IncorrectResultSizeDataAccessException("Driver returned " + ids.size() + " generated ids for "
+                    + ebooks.size() + " inserted rows", ebooks.size(), ids.size());
+        }
+        for (int i = 0; i < ebooks.size(); i++) {
+            ebooks.get(i).setId(ids.get(i));
+        }
+        return ids;
+    }
+
+    // Mirrors the NOT NULL columns of the Ebook table
+    private static String validate(Ebook ebook) {
+        if (ebook.getTitle() == null) {
+            return "title is required";
+        }
+        if (ebook.getAuthor() == null) {
+            return "author is required";
+        }
+        if (ebook.getPublishDate() == null) {
+            return "publishDate is required";
+        }
+        return null;
+    }
+}
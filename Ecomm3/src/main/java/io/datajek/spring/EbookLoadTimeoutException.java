@@ -0,0 +1,9 @@
+package io.datajek.spring;
+
+// A shared load of the same ebook did not finish in time
+public class EbookLoadTimeoutException extends RuntimeException{
+
+    public EbookLoadTimeoutException(String message){
+        super(message);
+    }
+}
@@ -3,6 +3,7 @@ package io.datajek.spring;
 public class EbookNotFoundException extends RuntimeException{
 
     public EbookNotFoundException(String message){
-        super(message);
+        // thrown for every miss and answered with a 404; the stack trace is never used
+        super(message, null, false, false);
     }
 }
\ No newline at end of file
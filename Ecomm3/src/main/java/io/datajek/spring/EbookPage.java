@@ -0,0 +1,32 @@
+package io.datajek.spring;
+
+import java.util.List;
+
+// One keyset page of ebooks; nextCursor is null on the last page
+public class EbookPage {
+
+	private List<?> items;
+	private String nextCursor;
+
+	public EbookPage(List<?> items, String nextCursor) {
+		super();
+		this.items = items;
+		this.nextCursor = nextCursor;
+	}
+
+	public List<?> getItems() {
+		return items;
+	}
+
+	public void setItems(List<?> items) {
+		this.items = items;
+	}
+
+	public String getNextCursor() {
+		return nextCursor;
+	}
+
+	public void setNextCursor(String nextCursor) {
+		this.nextCursor = nextCursor;
+	}
+}
@@ -0,0 +1,13 @@
+package io.datajek.spring;
+
+import java.util.List;
+import java.util.Map;
+
+public interface EbookPagingRepository {
+
+    // Up to limit ebooks strictly after the cursor, in cursor sort order
+    List<Ebook> findPage(EbookCursor after, int limit);
+
+    // Same page, selecting only the given fields; each row maps field name to value
+    List<Map<String, Object>> findPage(EbookCursor after, List<String> fields, int limit);
+}
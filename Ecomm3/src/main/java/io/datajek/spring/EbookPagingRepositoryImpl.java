@@ -0,0 +1,89 @@
+package io.datajek.spring;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.Query;
+
+// Keyset pagination: seeks past the last returned sort key, so every page costs one index range scan.
+// Native SQL, because JPQL has no row-value comparison and the expanded OR form defeats the index seek.
+public class EbookPagingRepositoryImpl implements EbookPagingRepository {
+
+    // Ebook property to column
+    private static final Map<String, String> COLUMNS = new HashMap<>();
+
+    static {
+        COLUMNS.put("id", "id");
+        COLUMNS.put("title", "title");
+        COLUMNS.put("author", "publisher");
+        COLUMNS.put("price", "price");
+        COLUMNS.put("publishDate", "publish_date");
+        COLUMNS.put("discount", "discount");
+    }
+
+    @PersistenceContext
+    private EntityManager em;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Ebook> findPage(EbookCursor after, int limit) {
+        Query query = em.createNativeQuery("select e.* from Ebook e" + keysetClause(after), Ebook.class);
+        bind(query, after);
+        return query.setMaxResults(limit).getResultList();
+    }
+
+    // A constructor expression needs a fixed argument list, so a variable projection comes back as tuples
+    @Override
+    @SuppressWarnings("unchecked")
+    public List<Map<String, Object>> findPage(EbookCursor after, List<String> fields, int limit) {
+        // sort keys are always selected so the caller can build the next cursor
+        Set<String> selected = new LinkedHashSet<>(fields);
+        selected.add("id");
+        selected.add("publishDate");
+        StringBuilder sql = new StringBuilder("select ");
+        for (String field : selected) {
+            sql.append("e.").append(COLUMNS.get(field)).append(", ");
+        }
+        sql.setLength(sql.length() - 2);
+        sql.append(" from Ebook e").append(keysetClause(after));
+
+        Query query = em.createNativeQuery(sql.toString(), Tuple.class);
+        bind(query, after);
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (Tuple tuple : (List<Tuple>) query.setMaxResults(limit).getResultList()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            int i = 0;
+            for (String field : selected) {
+                row.put(field, tuple.get(i++));
+            }
+            rows.add(row);
+        }
+        return rows;
+    }
+
+    private static String keysetClause(EbookCursor after) {
+        if (after.getSort() == EbookCursor.Sort.ID) {
+            return (after.isStart() ? "" : " where e.id > :id") + " order by e.id";
+        }
+        // row-value comparison seeks straight to (date, id) on idx_ebook_publish_date_id
+        return (after.isStart() ? "" : " where (e.publish_date, e.id) > (:date, :id)")
+                + " order by e.publish_date, e.id";
+    }
+
+    private static void bind(Query query, EbookCursor after) {
+        if (after.isStart()) {
+            return;
+        }
+        query.setParameter("id", after.getLastId());
+        if (after.getSort() == EbookCursor.Sort.PUBLISH_DATE) {
+            query.setParameter("date", after.getLastPublishDate());
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package io.datajek.spring;
+
+// If-Match named a version the ebook is no longer at
+public class EbookPreconditionFailedException extends RuntimeException{
+
+    public EbookPreconditionFailedException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,124 @@
+package io.datajek.spring;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Append-only log of (price, discount) per ebook, one row for every change, keyed for lookup
+ * by (ebook_id, effective_from). Rows are written in the transaction that changes the Ebook
+ * row and are never updated or deleted, so history outlives deleted ebooks. As-of lookups
+ * resolve a whole batch of (id, instant) pairs in one statement, one index probe per pair.
+ */
+@Component
+public class EbookPriceHistory {
+
+    private static final String INSERT_SQL =
+            "insert into ebook_price_history (ebook_id, effective_from, price, discount) values (?, ?, ?, ?)";
+
+    // Copies the row as it is after an UPDATE in the same transaction; a missing id inserts nothing
+    private static final String COPY_SQL =
+            "insert into ebook_price_history (ebook_id, effective_from, price, discount) "
+                    + "select id, ?, price, coalesce(discount, 0) from Ebook where id = ?";
+
+    // Latest entry at or before each instant; ties on effective_from go to the later write
+    private static final String AS_OF_SELECT =
+            "select q.idx, h.effective_from, h.price, h.discount from (values ";
+
+    private static final String AS_OF_JOIN =
+            ") as q(idx, ebook_id, as_of) join ebook_price_history h on h.id = ("
+                    + "select p.id from ebook_price_history p where p.ebook_id = q.ebook_id and p.effective_from <= q.as_of "
+                    + "order by p.effective_from desc, p.id desc fetch first 1 row only)";
+
+    private static final String AS_OF_ROW = "(cast(? as int), cast(? as int), cast(? as timestamp))";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${ebook.price-history.batch-size:500}")
+    private int batchSize;
+
+    @Value("${ebook.price-history.as-of-batch:500}")
+    private int asOfBatch;
+
+    @Autowired
+    public EbookPriceHistory(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // For entity writes, where the new values are in hand
+    public void record(Ebook ebook) {
+        jdbcTemplate.update(INSERT_SQL, ebook.getId(), now(), ebook.getPrice(), ebook.getDiscount());
+    }
+
+    // For JPQL and JDBC updates: snapshots the current rows of ids; must run in the updating transaction
+    public void recordCurrent(Collection<Integer> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        Timestamp now = now();
+        jdbcTemplate.batchUpdate(COPY_SQL, new ArrayList<>(ids), batchSize, (ps, id) -> {
+            ps.setTimestamp(1, now);
+            ps.setInt(2, id);
+        });
+    }
+
+    // For the bulk importer: one batch for rows it inserted itself, ids already set
+    public void record(List<Ebook> ebooks) {
+        Timestamp now = now();
+        jdbcTemplate.batchUpdate(INSERT_SQL, ebooks, batchSize, (ps, ebook) -> {
+            ps.setInt(1, ebook.getId());
+            ps.setTimestamp(2, now);
+            ps.setDouble(3, ebook.getPrice());
+            ps.setDouble(4, ebook.getDiscount());
+        });
+    }
+
+    /**
+     * Price in effect for each (id, at) pair, in request order. A pair with no entry at or before
+     * its instant, e.g. before the ebook existed, comes back with null price and discount.
+     */
+    public List<EbookPricePoint> asOf(List<EbookPriceQuery> queries) {
+        List<EbookPricePoint> points = new ArrayList<>(queries.size());
+        for (EbookPriceQuery query : queries) {
+            if (query == null || query.getAt() == null) {
+                throw new IllegalArgumentException("Each as-of query needs an id and an at timestamp");
+            }
+            points.add(new EbookPricePoint(query.getId(), query.getAt()));
+        }
+        for (int from = 0; from < queries.size(); from += asOfBatch) {
+            resolve(queries, from, Math.min(from + asOfBatch, queries.size()), points);
+        }
+        return points;
+    }
+
+    private void resolve(List<EbookPriceQuery> queries, int from, int to, List<EbookPricePoint> points) {
+        StringBuilder sql = new StringBuilder(AS_OF_SELECT.length() + AS_OF_JOIN.length() + (to - from) * (AS_OF_ROW.length() + 2));
+        sql.append(AS_OF_SELECT);
+        Object[] args = new Object[(to - from) * 3];
+        for (int i = from, a = 0; i < to; i++) {
+            if (i > from) {
+                sql.append(", ");
+            }
+            sql.append(AS_OF_ROW);
+            args[a++] = i;
+            args[a++] = queries.get(i).getId();
+            args[a++] = queries.get(i).getAt();
+        }
+        sql.append(AS_OF_JOIN);
+        jdbcTemplate.query(sql.toString(), rs -> {
+            EbookPricePoint point = points.get(rs.getInt(1));
+            point.setEffectiveFrom(rs.getTimestamp(2));
+            point.setPrice(rs.getDouble(3));
+            point.setDiscount(rs.getDouble(4));
+        }, args);
+    }
+
+    private static Timestamp now() {
+        return new Timestamp(System.currentTimeMillis());
+    }
+}
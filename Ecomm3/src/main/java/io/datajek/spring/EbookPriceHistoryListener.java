@@ -0,0 +1,25 @@
+package io.datajek.spring;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// Appends to EbookPriceHistory inside the flush of a new ebook or of an update that changed its price or discount
+public class EbookPriceHistoryListener {
+
+    private final EbookPriceHistory priceHistory;
+
+    @Autowired
+    public EbookPriceHistoryListener(EbookPriceHistory priceHistory) {
+        this.priceHistory = priceHistory;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onWrite(Ebook ebook) {
+        if (ebook.pricesChangedSinceRecorded()) {
+            priceHistory.record(ebook);
+            ebook.markPricesRecorded();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.datajek.spring;
+
+import java.sql.Timestamp;
+
+// Price and discount in effect for ebook id at instant at; all null when there was none yet
+public class EbookPricePoint {
+
+	private int id;
+	private Timestamp at;
+	private Timestamp effectiveFrom;
+	private Double price;
+	private Double discount;
+
+	public EbookPricePoint(int id, Timestamp at) {
+		super();
+		this.id = id;
+		this.at = at;
+	}
+
+	public int getId() {
+		return id;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
+	public Timestamp getAt() {
+		return at;
+	}
+
+	public void setAt(Timestamp at) {
+		this.at = at;
+	}
+
+	public Timestamp getEffectiveFrom() {
+		return effectiveFrom;
+	}
+
+	public void setEffectiveFrom(Timestamp effectiveFrom) {
+		this.effectiveFrom = effectiveFrom;
+	}
+
+	public Double getPrice() {
+		return price;
+	}
+
+	public void setPrice(Double price) {
+		this.price = price;
+	}
+
+	public Double getDiscount() {
+		return discount;
+	}
+
+	public void setDiscount(Double discount) {
+		this.discount = discount;
+	}
+}
@@ -0,0 +1,26 @@
+package io.datajek.spring;
+
+import java.sql.Timestamp;
+
+// One (ebook id, instant) pair of POST /ebooks/prices/as-of; at is epoch millis or ISO-8601
+public class EbookPriceQuery {
+
+	private int id;
+	private Timestamp at;
+
+	public int getId() {
+		return id;
+	}
+
+	public void setId(int id) {
+		this.id = id;
+	}
+
+	public Timestamp getAt() {
+		return at;
+	}
+
+	public void setAt(Timestamp at) {
+		this.at = at;
+	}
+}
@@ -0,0 +1,26 @@
+package io.datajek.spring;
+
+import java.util.Map;
+
+// Request body for PATCH /ebooks/prices: ebook id to new price and/or discount
+public class EbookPriceUpdates {
+
+	private Map<Integer, Double> prices;
+	private Map<Integer, Double> discounts;
+
+	public Map<Integer, Double> getPrices() {
+		return prices;
+	}
+
+	public void setPrices(Map<Integer, Double> prices) {
+		this.prices = prices;
+	}
+
+	public Map<Integer, Double> getDiscounts() {
+		return discounts;
+	}
+
+	public void setDiscounts(Map<Integer, Double> discounts) {
+		this.discounts = discounts;
+	}
+}
@@ -4,6 +4,6 @@ import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.JpaRepository;
 
 @Repository
-public interface EbookRepository extends JpaRepository <Ebook, Integer>, CustomEbookRepository{
+public interface EbookRepository extends JpaRepository <Ebook, Integer>, CustomEbookRepository, EbookPagingRepository, EbookBatchRepository{
 
 }
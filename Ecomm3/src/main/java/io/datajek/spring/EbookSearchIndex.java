@@ -0,0 +1,190 @@
+package io.datajek.spring;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * In-memory inverted index over ebook title and author. Terms are kept sorted, so a prefix
+ * query is a range scan over the term dictionary instead of a LIKE scan over the table.
+ * Every query word must match the start of some title or author word; results are ranked
+ * by how well they match.
+ */
+@Component
+public class EbookSearchIndex {
+
+    // which fields a term occurs in, per ebook
+    private static final int IN_TITLE = 1;
+    private static final int IN_AUTHOR = 2;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // term -> ebook id -> IN_TITLE/IN_AUTHOR bits
+    private TreeMap<String, Map<Integer, Integer>> postings = new TreeMap<>();
+
+    // ebook id -> its terms, to unindex on update and delete
+    private Map<Integer, Set<String>> documents = new HashMap<>();
+
+    @Autowired
+    public EbookSearchIndex(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Full rebuild from the table, swapped in under the write lock
+    @EventListener(ContextRefreshedEvent.class)
+    public void rebuild() {
+        EbookSearchIndex fresh = new EbookSearchIndex(jdbcTemplate);
+        jdbcTemplate.query("select id, title, publisher from Ebook",
+                rs -> { fresh.add(rs.getInt(1), rs.getString(2), rs.getString(3)); });
+        lock.writeLock().lock();
+        try {
+            postings = fresh.postings;
+            documents = fresh.documents;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Adds or replaces one ebook
+    public void index(int id, String title, String author) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+            add(id, title, author);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            unindex(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the best matches, highest score first, ties by id. Per query word an ebook scores
+     * 2 for a whole-word match or 1 for a prefix match, doubled when the word is in the title.
+     */
+    public List<Integer> search(String query, int limit) {
+        List<String> words = tokenize(query);
+        if (words.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Integer, Integer> scores = null;
+        lock.readLock().lock();
+        try {
+            for (String word : words) {
+                Map<Integer, Integer> wordScores = new HashMap<>();
+                NavigableMap<String, Map<Integer, Integer>> matches =
+                        postings.subMap(word, true, word + Character.MAX_VALUE, false);
+                for (Map.Entry<String, Map<Integer, Integer>> term : matches.entrySet()) {
+                    int base = term.getKey().length() == word.length() ? 2 : 1;
+                    for (Map.Entry<Integer, Integer> posting : term.getValue().entrySet()) {
+                        int score = (posting.getValue() & IN_TITLE) != 0 ? base * 2 : base;
+                        wordScores.merge(posting.getKey(), score, Math::max);
+                    }
+                }
+                if (scores == null) {
+                    scores = wordScores;
+                } else {
+                    // every word must match
+                    scores.keySet().retainAll(wordScores.keySet());
+                    for (Map.Entry<Integer, Integer> entry : scores.entrySet()) {
+                        entry.setValue(entry.getValue() + wordScores.get(entry.getKey()));
+                    }
+                }
+                if (scores.isEmpty()) {
+                    break;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        List<Map.Entry<Integer, Integer>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort((a, b) -> a.getValue().equals(b.getValue())
+                ? Integer.compare(a.getKey(), b.getKey())
+                : Integer.compare(b.getValue(), a.getValue()));
+        List<Integer> ids = new ArrayList<>(Math.min(limit, ranked.size()));
+        for (int i = 0; i < ranked.size() && i < limit; i++) {
+            ids.add(ranked.get(i).getKey());
+        }
+        return ids;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // callers hold the write lock (or own a private instance, as in rebuild)
+    private void add(int id, String title, String author) {
+        Set<String> terms = new LinkedHashSet<>();
+        addTerms(id, title, IN_TITLE, terms);
+        addTerms(id, author, IN_AUTHOR, terms);
+        if (!terms.isEmpty()) {
+            documents.put(id, terms);
+        }
+    }
+
+    private void addTerms(int id, String text, int field, Set<String> terms) {
+        for (String term : tokenize(text)) {
+            postings.computeIfAbsent(term, k -> new HashMap<>()).merge(id, field, (a, b) -> a | b);
+            terms.add(term);
+        }
+    }
+
+    private void unindex(int id) {
+        Set<String> terms = documents.remove(id);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Integer, Integer> ids = postings.get(term);
+            ids.remove(id);
+            if (ids.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+    }
+
+    // Lower-cased runs of letters and digits
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean wordChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (wordChar && start < 0) {
+                start = i;
+            } else if (!wordChar && start >= 0) {
+                tokens.add(text.substring(start, i).toLowerCase(Locale.ROOT));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+}
@@ -0,0 +1,47 @@
+package io.datajek.spring;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+// Keeps EbookSearchIndex in step with JPA writes; changes are applied only once the transaction commits
+public class EbookSearchIndexListener {
+
+    private final EbookSearchIndex searchIndex;
+
+    @Autowired
+    public EbookSearchIndexListener(EbookSearchIndex searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Ebook ebook) {
+        int id = ebook.getId();
+        String title = ebook.getTitle();
+        String author = ebook.getAuthor();
+        afterCommit(() -> searchIndex.index(id, title, author));
+    }
+
+    @PostRemove
+    public void onRemove(Ebook ebook) {
+        int id = ebook.getId();
+        afterCommit(() -> searchIndex.remove(id));
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
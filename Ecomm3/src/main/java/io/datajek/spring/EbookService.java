@@ -4,98 +4,455 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import java.util.List;
 
-import java.lang.reflect.Field;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.sql.Date;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import javax.annotation.PostConstruct;
 import javax.transaction.Transactional;
-import org.springframework.util.ReflectionUtils;
 
 @Service
 public class EbookService {
-    
+
+    static final int MAX_PAGE_SIZE = 1000;
+
+    private static final List<String> PAGE_FIELDS =
+            Arrays.asList("id", "title", "author", "price", "publishDate", "discount");
+
+    // Built once; "id" and "version" are never patchable
+    private static final PatchPlan<Ebook> EBOOK_PATCH = PatchPlan.of(Ebook.class, "id", "version");
+
     @Autowired
 	private EbookRepository ebookRepo;
+
+    @Autowired
+    private EbookExporter exporter;
+
+    @Autowired
+    private EbookImporter importer;
+
+    @Autowired
+    private EbookSearchIndex searchIndex;
+
+    @Autowired
+    private EbookCache ebookCache;
+
+    @Autowired
+    private EbookIdFilter idFilter;
+
+    @Autowired
+    private EbookCatalogSnapshot snapshot;
+
+    @Autowired
+    private EbookDiscountBuffer discountBuffer;
+
+    @Autowired
+    private EbookCatalogVersion catalogVersion;
+
+    @Autowired
+    private EbookPriceHistory priceHistory;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${ebook.load.timeout-ms:2000}")
+    private long loadTimeoutMillis;
+
+    @Value("${ebook.update.max-attempts:3}")
+    private int maxUpdateAttempts;
+
+    @Value("${ebook.update.retry-backoff-ms:10}")
+    private long retryBackoffMillis;
+
+    // concurrent cache misses for one id, between the same writes, share a single findById
+    private SingleFlight<EbookCache.LoadKey, Ebook> ebookLoads;
+
+    private TransactionTemplate transactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        ebookLoads = new SingleFlight<>(loadTimeoutMillis);
+        transactionTemplate = new TransactionTemplate(transactionManager);
+    }
 	
 	//Get all Ebooks
 	public List<Ebook> getAllEbooks() {
-		return ebookRepo.findAll();	    
+		return withPendingDiscounts(ebookRepo.findAll());
 	}
 
+    //Pre-encoded JSON for all Ebooks, or null when the snapshot read model is off or not built yet
+    public EbookCatalogSnapshot.Encoded getEncodedCatalog() {
+        // the encoded bytes do not know about buffered discounts; the list path overlays them
+        return discountBuffer.isEmpty() ? snapshot.catalog() : null;
+    }
+
+    public EbookCatalogSnapshot.Encoded getEncodedEbook(int id) {
+        // the encoded bytes do not know about a buffered discount
+        return discountBuffer.pending(id) != null ? null : snapshot.ebook(id);
+    }
+
+    // Read before loading the list, so a write racing the load can only make the tag older than the data
+    public String getCatalogETag() {
+        return catalogVersion.eTag();
+    }
+
+    // ETag of what getEbook would return, if it is known without a query; otherwise null
+    public String peekEbookETag(int id) {
+        Ebook cached = ebookCache.peek(id);
+        return cached == null ? null : EbookETags.of(withPendingDiscount(cached));
+    }
+
+    //Get one keyset page of Ebooks, optionally projected to a subset of fields
+    public EbookPage getEbookPage(String sort, String cursor, int limit, String fields) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        EbookCursor after = cursor == null ? EbookCursor.start(EbookCursor.Sort.of(sort)) : EbookCursor.decode(cursor);
+        if (!after.getSort().getField().equals(sort)) {
+            throw new IllegalArgumentException("Cursor was issued for sort=" + after.getSort().getField());
+        }
+        // fetch one extra row to learn whether another page exists
+        if (fields == null) {
+            List<Ebook> rows = ebookRepo.findPage(after, limit + 1);
+            String next = null;
+            if (rows.size() > limit) {
+                rows = rows.subList(0, limit);
+                Ebook last = rows.get(limit - 1);
+                next = EbookCursor.after(after.getSort(), last.getId(), last.getPublishDate()).encode();
+            }
+            return new EbookPage(withPendingDiscounts(rows), next);
+        }
+        List<String> requested = new ArrayList<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!PAGE_FIELDS.contains(name)) {
+                throw new IllegalArgumentException("Unknown ebook field: " + name);
+            }
+            requested.add(name);
+        }
+        List<Map<String, Object>> rows = ebookRepo.findPage(after, requested, limit + 1);
+        String next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            Map<String, Object> last = rows.get(limit - 1);
+            next = EbookCursor.after(after.getSort(), (Integer) last.get("id"), (Date) last.get("publishDate")).encode();
+        }
+        for (Map<String, Object> row : rows) {
+            Double pending = discountBuffer.pending((Integer) row.get("id"));
+            if (pending != null && row.containsKey("discount")) {
+                row.put("discount", pending);
+            }
+            row.keySet().retainAll(requested);
+        }
+        return new EbookPage(rows, next);
+    }
+
+    //Stream every Ebook as NDJSON
+    public long exportEbooks(OutputStream out) throws IOException {
+        // the export reads the table directly
+        discountBuffer.flush();
+        return exporter.writeNdjson(out);
+    }
+
+    //Import Ebooks from a JSON array or NDJSON body in chunked transactions
+    public EbookImportResult importEbooks(InputStream body) throws IOException {
+        return importer.importEbooks(body);
+    }
+
+    //Type-ahead search over title and author, best matches first
+    public List<Ebook> searchEbooks(String query, int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+        List<Integer> ids = searchIndex.search(query, limit);
+        Map<Integer, Ebook> byId = new HashMap<>();
+        for (Ebook ebook : ebookRepo.findAllById(ids)) {
+            byId.put(ebook.getId(), ebook);
+        }
+        List<Ebook> results = new ArrayList<>(ids.size());
+        for (Integer id : ids) {
+            Ebook ebook = byId.get(id);
+            if (ebook != null) {
+                results.add(ebook);
+            }
+        }
+        return withPendingDiscounts(results);
+    }
+
     public Ebook getEbook(int id) {
+        checkMightExist(id);
+        return withPendingDiscount(ebookCache.get(id, this::loadEbookOnce));
+	}
+
+    // Callers only share a load started under the same cache write sequence, never one from before a write
+    private Ebook loadEbookOnce(EbookCache.LoadKey key) {
+        try {
+            return ebookLoads.execute(key, k -> loadEbook(k.getId()));
+        } catch (TimeoutException ex) {
+            throw new EbookLoadTimeoutException("Timed out loading ebook with id: " + key.getId());
+        }
+    }
+
+    private Ebook loadEbook(int id) {
         Optional<Ebook> ebook = ebookRepo.findById(id);
         if(!ebook.isPresent()){
             throw new EbookNotFoundException("Ebook not found with id: " + id);
         }
         return ebook.get();
-	}
+    }
+
+    // Overlays a buffered discount; cached instances are shared, so a copy is returned
+    private Ebook withPendingDiscount(Ebook ebook) {
+        Double pending = discountBuffer.pending(ebook.getId());
+        if (pending == null) {
+            return ebook;
+        }
+        Ebook copy = new Ebook(ebook.getId(), ebook.getTitle(), ebook.getAuthor(), ebook.getPrice(), ebook.getPublishDate(), pending);
+        copy.setVersion(ebook.getVersion());
+        return copy;
+    }
+
+    private List<Ebook> withPendingDiscounts(List<Ebook> ebooks) {
+        if (discountBuffer.isEmpty()) {
+            return ebooks;
+        }
+        List<Ebook> result = new ArrayList<>(ebooks.size());
+        for (Ebook ebook : ebooks) {
+            result.add(withPendingDiscount(ebook));
+        }
+        return result;
+    }
+
+    // Ids the filter has never seen are a 404 without a query
+    private void checkMightExist(int id) {
+        if (!idFilter.mightExist(id)) {
+            throw new EbookNotFoundException("Ebook not found with id: " + id);
+        }
+    }
+
+    // Every write path reports the ids it touched
+    private void ebookChanged(int id) {
+        ebookCache.invalidate(id);
+        snapshot.markChanged(id);
+        catalogVersion.changed();
+    }
+
+    private void ebooksChanged(Collection<Integer> ids) {
+        ebookCache.invalidateAll(ids);
+        snapshot.markChanged(ids);
+        catalogVersion.changed();
+    }
+
+    public Map<String, Object> getCacheStats() {
+        Map<String, Object> stats = ebookCache.stats();
+        stats.put("singleFlight", ebookLoads.stats());
+        stats.put("idFilter", idFilter.stats());
+        stats.put("discountBuffer", discountBuffer.stats());
+        return stats;
+    }
 
     //Add a Ebook
 	public Ebook addEbook(Ebook b) {
-		return ebookRepo.save(b);
+		Ebook saved = ebookRepo.save(b);
+		snapshot.markChanged(saved.getId());
+		catalogVersion.changed();
+		return saved;
 	}
 
     //Update a Ebook
-	public Ebook updateEbook(int id, Ebook ebookDetails) {
-		//get ebook object by ID
-		Optional<Ebook> optionalEbook = ebookRepo.findById(id);
-        if(!optionalEbook.isPresent()){
-            throw new EbookNotFoundException("Ebook not found with id: " + id);
-        }
-        Ebook ebook = optionalEbook.get();
-        ebook.setTitle(ebookDetails.getTitle());
-        ebook.setAuthor(ebookDetails.getAuthor());
-        ebook.setPrice(ebookDetails.getPrice());
-        ebook.setDiscount(ebookDetails.getDiscount());
-        ebook.setPublishDate(ebookDetails.getPublishDate());
-        return ebookRepo.save(ebook);
-	}
+    public Ebook updateEbook(int id, Ebook ebookDetails) {
+        return updateEbook(id, ebookDetails, null);
+    }
+
+    //Update a Ebook; ifMatch, when given, must be the ETag of the current state
+    public Ebook updateEbook(int id, Ebook ebookDetails, String ifMatch) {
+        checkMightExist(id);
+        Integer expectedVersion = flushForWrite(id, ifMatch);
+        return saveWithRetry(id, expectedVersion, ebook -> {
+            ebook.setTitle(ebookDetails.getTitle());
+            ebook.setAuthor(ebookDetails.getAuthor());
+            ebook.setPrice(ebookDetails.getPrice());
+            ebook.setDiscount(ebookDetails.getDiscount());
+            ebook.setPublishDate(ebookDetails.getPublishDate());
+        });
+    }
+
+    //Price and discount in effect for each (id, at) pair, resolved in batches rather than one lookup per pair
+    public List<EbookPricePoint> getPricesAsOf(List<EbookPriceQuery> queries) {
+        // values still in the write-behind buffer have no history entry yet
+        discountBuffer.flush();
+        return priceHistory.asOf(queries);
+    }
 
     //Partial update
-	public Ebook patch( int id, Map<String, Object> partialEbook) {
+    public Ebook patch(int id, Map<String, Object> partialEbook) {
+        return patch(id, partialEbook, null);
+    }
 
-		Optional<Ebook> optionalEbook = ebookRepo.findById(id);
-        if(!optionalEbook.isPresent()){
-            throw new EbookNotFoundException("Ebook not found with id: " + id);
+    public Ebook patch(int id, Map<String, Object> partialEbook, String ifMatch) {
+        // reject bad keys/values before touching the database
+        EBOOK_PATCH.validate(partialEbook);
+        checkMightExist(id);
+        Integer expectedVersion = flushForWrite(id, ifMatch);
+        return saveWithRetry(id, expectedVersion, ebook -> EBOOK_PATCH.apply(ebook, partialEbook));
+    }
+
+    /**
+     * A buffered discount must land before a read-modify-save, or the save would be overwritten
+     * by it. The flush bumps the version, so If-Match is checked first, against what the client
+     * could have seen: the row with the buffered discount. Returns the version the save must
+     * then find, or null without If-Match.
+     */
+    private Integer flushForWrite(int id, String ifMatch) {
+        if (ifMatch == null) {
+            discountBuffer.flush(id);
+            return null;
         }
-        Ebook ebook = optionalEbook.get();
-        partialEbook.forEach((key, value) -> {
-            Field field = ReflectionUtils.findField(Ebook.class, key);
-            ReflectionUtils.makeAccessible(field);
-            ReflectionUtils.setField(field, ebook, value);
+        Ebook[] seen = new Ebook[1];
+        Double flushed = discountBuffer.flush(id, () -> {
+            Ebook visible = withPendingDiscount(loadEbook(id));
+            if (!EbookETags.matches(ifMatch, visible)) {
+                throw new EbookPreconditionFailedException("Ebook " + id + " no longer matches " + ifMatch);
+            }
+            seen[0] = visible;
         });
-        return ebookRepo.save(ebook);			
-	}
+        if (flushed == null) {
+            return seen[0].getVersion();
+        }
+        if (Double.compare(flushed, seen[0].getDiscount()) != 0) {
+            // a newer discount was buffered after the check
+            throw new EbookPreconditionFailedException("Ebook " + id + " no longer matches " + ifMatch);
+        }
+        // our flush is the one version bump the client did not see
+        return seen[0].getVersion() + 1;
+    }
+
+    /**
+     * Read-modify-save guarded by the @Version column: the UPDATE matches on id and version, so a
+     * concurrent writer makes it fail instead of being overwritten. The change is then re-applied
+     * to the fresh row, up to maxUpdateAttempts times. With If-Match the caller pinned a version,
+     * so a newer row is a 412 rather than a retry.
+     */
+    private Ebook saveWithRetry(int id, Integer expectedVersion, Consumer<Ebook> change) {
+        for (int attempt = 1; ; attempt++) {
+            Ebook ebook = loadEbook(id);
+            if (expectedVersion != null && ebook.getVersion() != expectedVersion) {
+                throw new EbookPreconditionFailedException("Ebook " + id + " is at version " + ebook.getVersion());
+            }
+            change.accept(ebook);
+            try {
+                Ebook saved = ebookRepo.save(ebook);
+                ebookChanged(id);
+                return saved;
+            } catch (OptimisticLockingFailureException ex) {
+                if (attempt >= maxUpdateAttempts) {
+                    throw new EbookUpdateConflictException("Ebook " + id + " changed concurrently on all " + attempt + " attempts");
+                }
+                backOff(attempt);
+            }
+        }
+    }
+
+    private void backOff(int attempt) {
+        try {
+            Thread.sleep(retryBackoffMillis * attempt);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new EbookUpdateConflictException("Interrupted while retrying a conflicting update");
+        }
+    }
 
+    // Single UPDATE; a zero row count means the ebook does not exist
     @Transactional
     public void updatePrice(int id,double price) {
-        Optional<Ebook> optionalEbook = ebookRepo.findById(id);
-        if(!optionalEbook.isPresent()){
+        checkMightExist(id);
+        if(ebookRepo.updatePrice(id,price) == 0){
             throw new EbookNotFoundException("Ebook not found with id: " + id);
         }
-        ebookRepo.updatePrice(id,price);
+        priceHistory.recordCurrent(Arrays.asList(id));
+        // the JPQL update bypasses the persistence context, so the cache must be told
+        ebookChanged(id);
     }
 
-    @Transactional
+    // In write-behind mode nothing hits the database: the id filter screens unknown ids and the
+    // flush drops the rare false positive, so no transaction is opened here
     public void updateDiscount(int id,double discount) {
-        Optional<Ebook> optionalEbook = ebookRepo.findById(id);
-        if(!optionalEbook.isPresent()){
-            System.out.println("not found");
-            throw new EbookNotFoundException("Ebook not found with id: " + id);
+        checkMightExist(id);
+        if (discountBuffer.isEnabled()) {
+            discountBuffer.put(id, discount);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            if(ebookRepo.updateDiscount(id,discount) == 0){
+                throw new EbookNotFoundException("Ebook not found with id: " + id);
+            }
+            priceHistory.recordCurrent(Arrays.asList(id));
+            ebookChanged(id);
+        });
+    }
+
+    //Batch price/discount update in one transaction; unknown ids are reported, not fatal
+    @Transactional
+    public EbookBatchUpdateResult updatePrices(EbookPriceUpdates updates) {
+        Set<Integer> notFound = new TreeSet<>();
+        int prices = 0, discounts = 0;
+        if (updates.getDiscounts() != null) {
+            // these values are newer than anything still buffered; discarded before this
+            // transaction locks any row, since discard waits for an in-flight flush
+            discountBuffer.discard(updates.getDiscounts().keySet());
+        }
+        if (updates.getPrices() != null) {
+            ebooksChanged(updates.getPrices().keySet());
+            List<Integer> missing = ebookRepo.updatePrices(updates.getPrices());
+            prices = updates.getPrices().size() - missing.size();
+            notFound.addAll(missing);
+        }
+        if (updates.getDiscounts() != null) {
+            ebooksChanged(updates.getDiscounts().keySet());
+            List<Integer> missing = ebookRepo.updateDiscounts(updates.getDiscounts());
+            discounts = updates.getDiscounts().size() - missing.size();
+            notFound.addAll(missing);
+        }
+        // one entry per changed ebook, after both updates, so a price and discount change together
+        Set<Integer> changed = new TreeSet<>();
+        if (updates.getPrices() != null) {
+            changed.addAll(updates.getPrices().keySet());
+        }
+        if (updates.getDiscounts() != null) {
+            changed.addAll(updates.getDiscounts().keySet());
         }
-        ebookRepo.updateDiscount(id,discount);
+        changed.removeAll(notFound);
+        priceHistory.recordCurrent(changed);
+        return new EbookBatchUpdateResult(prices, discounts, new ArrayList<>(notFound));
     }
 
     //delete a Ebook
 	public String deleteEbook(int id) {
+		checkMightExist(id);
 		Optional<Ebook> optionalEbook = ebookRepo.findById(id);
         if(!optionalEbook.isPresent()){
             throw new EbookNotFoundException("Ebook not found with id: " + id);
         }
         ebookRepo.deleteById(id);
+        discountBuffer.discard(Arrays.asList(id));
+        ebookChanged(id);
         return "Deleted Ebook with id: " + id;
 	}
 
@@ -0,0 +1,9 @@
+package io.datajek.spring;
+
+// Optimistic lock conflicts persisted past the retry limit
+public class EbookUpdateConflictException extends RuntimeException{
+
+    public EbookUpdateConflictException(String message){
+        super(message);
+    }
+}
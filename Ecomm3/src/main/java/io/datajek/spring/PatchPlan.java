@@ -0,0 +1,149 @@
+package io.datajek.spring;
+
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.sql.Date;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Applies JSON-style partial updates (property name to value) to an entity. Setters and value
+ * converters are resolved once when the plan is built; applying a patch is a map lookup, a
+ * conversion and a direct method handle call per key, with no reflection.
+ */
+public final class PatchPlan<T> {
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<T> type;
+    private final Map<String, Property> properties;
+
+    private PatchPlan(Class<T> type, Map<String, Property> properties) {
+        this.type = type;
+        this.properties = properties;
+    }
+
+    // Every bean property with a public setter, except the read-only names given
+    public static <T> PatchPlan<T> of(Class<T> type, String... readOnly) {
+        List<String> excluded = Arrays.asList(readOnly);
+        Map<String, Property> properties = new HashMap<>();
+        try {
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            for (PropertyDescriptor pd : Introspector.getBeanInfo(type, Object.class).getPropertyDescriptors()) {
+                if (pd.getWriteMethod() == null || excluded.contains(pd.getName())) {
+                    continue;
+                }
+                MethodHandle setter = lookup.unreflect(pd.getWriteMethod()).asType(SETTER_TYPE);
+                properties.put(pd.getName(), new Property(pd.getName(), setter, converterFor(pd.getPropertyType())));
+            }
+        } catch (IntrospectionException | IllegalAccessException ex) {
+            throw new IllegalStateException("Cannot build patch plan for " + type.getName(), ex);
+        }
+        return new PatchPlan<>(type, properties);
+    }
+
+    public T apply(T target, Map<String, Object> patch) {
+        patch.forEach((key, value) -> {
+            Property property = properties.get(key);
+            if (property == null) {
+                throw new IllegalArgumentException("Field cannot be patched: " + key);
+            }
+            property.set(target, value);
+        });
+        return target;
+    }
+
+    // Rejects unknown keys and unconvertible values without touching any entity
+    public void validate(Map<String, Object> patch) {
+        patch.forEach((key, value) -> {
+            Property property = properties.get(key);
+            if (property == null) {
+                throw new IllegalArgumentException("Field cannot be patched: " + key);
+            }
+            property.convert(value);
+        });
+    }
+
+    public boolean isPatchable(String key) {
+        return properties.containsKey(key);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    private static Function<Object, Object> converterFor(Class<?> propertyType) {
+        if (propertyType == double.class || propertyType == Double.class) {
+            return value -> value instanceof Number ? ((Number) value).doubleValue() : Double.parseDouble(value.toString());
+        }
+        if (propertyType == int.class || propertyType == Integer.class) {
+            return value -> value instanceof Number ? ((Number) value).intValue() : Integer.parseInt(value.toString());
+        }
+        if (propertyType == long.class || propertyType == Long.class) {
+            return value -> value instanceof Number ? ((Number) value).longValue() : Long.parseLong(value.toString());
+        }
+        if (propertyType == boolean.class || propertyType == Boolean.class) {
+            return value -> value instanceof Boolean ? value : Boolean.parseBoolean(value.toString());
+        }
+        if (propertyType == Date.class) {
+            return value -> {
+                if (value instanceof Number) {
+                    return new Date(((Number) value).longValue());
+                }
+                if (value instanceof java.util.Date) {
+                    return new Date(((java.util.Date) value).getTime());
+                }
+                return Date.valueOf(value.toString());
+            };
+        }
+        if (propertyType == String.class) {
+            return Object::toString;
+        }
+        return propertyType::cast;
+    }
+
+    private static final class Property {
+
+        private final String name;
+        private final MethodHandle setter;
+        private final Function<Object, Object> converter;
+
+        Property(String name, MethodHandle setter, Function<Object, Object> converter) {
+            this.name = name;
+            this.setter = setter;
+            this.converter = converter;
+        }
+
+        Object convert(Object value) {
+            if (value == null) {
+                return null;
+            }
+            try {
+                return converter.apply(value);
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("Invalid value for " + name + ": " + value, ex);
+            }
+        }
+
+        void set(Object target, Object value) {
+            Object converted = convert(value);
+            try {
+                setter.invokeExact(target, converted);
+            } catch (NullPointerException ex) {
+                // null unboxed into a primitive setter
+                throw new IllegalArgumentException("Field " + name + " cannot be null", ex);
+            } catch (RuntimeException | Error ex) {
+                throw ex;
+            } catch (Throwable ex) {
+                throw new IllegalStateException("Failed to set " + name, ex);
+            }
+        }
+    }
+}
@@ -1,4 +1,7 @@
 INSERT INTO Ebook (title, publisher, price, publish_date) VALUES ( 'Clean Code', 'Robert C. Martin', 39.99, '2008-08-01');
 INSERT INTO Ebook (title, publisher, price, publish_date) VALUES ( 'Effective Java', 'Joshua Bloch', 45.00, '2008-05-08');
 INSERT INTO Ebook (title, publisher, price, publish_date) VALUES ( 'Java Concurrency in Practice', 'Brian Goetz', 50.00, '2006-05-19');
-INSERT INTO Ebook (title, publisher, price, publish_date) VALUES ( 'Design Patterns', 'Erich Gamma', 55.00, '1994-10-31');
\ No newline at end of file
+INSERT INTO Ebook (title, publisher, price, publish_date) VALUES ( 'Design Patterns', 'Erich Gamma', 55.00, '1994-10-31');
+
+-- Seed prices are taken as in effect since publication
+INSERT INTO ebook_price_history (ebook_id, effective_from, price, discount) SELECT id, publish_date, price, COALESCE(discount, 0) FROM Ebook;
@@ -5,5 +5,23 @@ CREATE TABLE Ebook (
     price DOUBLE NOT NULL,
     publish_date DATE NOT NULL,
     discount DOUBLE DEFAULT 0,
+    version INTEGER DEFAULT 0 NOT NULL,
     PRIMARY KEY (id)
-);
\ No newline at end of file
+);
+
+-- Keyset pagination over (publish_date, id) for GET /ebooks?sort=publishDate
+CREATE INDEX idx_ebook_publish_date_id ON Ebook (publish_date, id);
+
+-- Append-only: one row per price or discount change, kept after the ebook is deleted
+CREATE TABLE ebook_price_history (
+    id BIGINT NOT NULL AUTO_INCREMENT,
+    ebook_id INTEGER NOT NULL,
+    effective_from TIMESTAMP NOT NULL,
+    price DOUBLE NOT NULL,
+    discount DOUBLE NOT NULL,
+    PRIMARY KEY (id)
+);
+
+-- As-of lookups: latest effective_from at or before an instant, per ebook; id breaks ties
+-- so "order by effective_from desc, id desc" reads the first index entry and stops
+CREATE INDEX idx_price_history_ebook_from ON ebook_price_history (ebook_id, effective_from, id);
@@ -0,0 +1,126 @@
+package io.datajek.spring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+import java.sql.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+// Loads are shared the way EbookService shares them: one SingleFlight keyed on the cache's LoadKey
+class EbookCacheTest {
+
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+
+	private final EbookCache cache = new EbookCache(100, 60000);
+
+	private final SingleFlight<EbookCache.LoadKey, Ebook> loads = new SingleFlight<>(5000);
+
+	// what the database holds for ebook 1
+	private final AtomicReference<Ebook> row = new AtomicReference<>(ebook("Before"));
+
+	// the next load reads the row, then parks until released; later loads do not park
+	private volatile CountDownLatch loadStarted = new CountDownLatch(0);
+	private volatile CountDownLatch releaseLoad = new CountDownLatch(0);
+
+	@AfterEach
+	void shutdown() {
+		callers.shutdownNow();
+	}
+
+	private static Ebook ebook(String title) {
+		return new Ebook(1, title, "Author", 10.0, Date.valueOf("2020-01-01"), 0.0);
+	}
+
+	// Makes the next load park, after reading the row, until the returned latch is released
+	private CountDownLatch parkNextLoad() {
+		CountDownLatch release = new CountDownLatch(1);
+		loadStarted = new CountDownLatch(1);
+		releaseLoad = release;
+		return release;
+	}
+
+	private Ebook get() throws Exception {
+		return cache.get(1, key -> {
+			try {
+				return loads.execute(key, k -> {
+					Ebook read = row.get();
+					CountDownLatch release = releaseLoad;
+					releaseLoad = new CountDownLatch(0);
+					loadStarted.countDown();
+					await(release);
+					return read;
+				});
+			} catch (TimeoutException ex) {
+				throw new IllegalStateException(ex);
+			}
+		});
+	}
+
+	@Test
+	void callerAfterAnInvalidationDoesNotJoinTheEarlierLoad() throws Exception {
+		CountDownLatch release = parkNextLoad();
+		Future<Ebook> leader = callers.submit(this::get);
+		loadStarted.await();
+
+		// a write commits while the leader still holds the old row
+		row.set(ebook("After"));
+		cache.invalidate(1);
+		Future<Ebook> follower = callers.submit(this::get);
+
+		assertEquals("After", follower.get(5, TimeUnit.SECONDS).getTitle());
+		release.countDown();
+		assertEquals("Before", leader.get(5, TimeUnit.SECONDS).getTitle());
+
+		assertEquals(0L, loads.stats().get("collapsed"));
+		assertEquals("After", cache.peek(1).getTitle());
+	}
+
+	@Test
+	void callersBetweenTheSameWritesShareOneLoad() throws Exception {
+		CountDownLatch release = parkNextLoad();
+		Future<Ebook> leader = callers.submit(this::get);
+		loadStarted.await();
+		Future<Ebook> follower = callers.submit(this::get);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while ((Long) loads.stats().get("collapsed") < 1 && System.nanoTime() < deadline) {
+			Thread.sleep(1);
+		}
+		release.countDown();
+
+		assertSame(leader.get(5, TimeUnit.SECONDS), follower.get(5, TimeUnit.SECONDS));
+		assertEquals(1L, loads.stats().get("loads"));
+		assertEquals(1L, loads.stats().get("collapsed"));
+	}
+
+	@Test
+	void loadOverlappingAnInvalidationIsNotCached() throws Exception {
+		CountDownLatch release = parkNextLoad();
+		Future<Ebook> stale = callers.submit(this::get);
+		loadStarted.await();
+		row.set(ebook("After"));
+		cache.invalidate(1);
+		release.countDown();
+
+		assertEquals("Before", stale.get(5, TimeUnit.SECONDS).getTitle());
+		assertNull(cache.peek(1));
+		assertEquals("After", get().getTitle());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+}
@@ -0,0 +1,54 @@
+package io.datajek.spring;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+// Write paths must drop the cached ebook, so each test reads it once to make sure it is cached
+@SpringBootTest
+@AutoConfigureMockMvc
+class EbookControllerTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Test
+	void putIsVisibleToTheNextGet() throws Exception {
+		mvc.perform(get("/ebooks/1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Clean Code"));
+
+		mvc.perform(put("/ebooks/1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"Clean Code, 2nd ed.\", \"author\": \"Robert C. Martin\", "
+						+ "\"price\": 42.5, \"publishDate\": \"2008-08-01\", \"discount\": 0}"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Clean Code, 2nd ed."));
+
+		mvc.perform(get("/ebooks/1"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.title").value("Clean Code, 2nd ed."))
+				.andExpect(jsonPath("$.price").value(42.5));
+	}
+
+	@Test
+	void deleteIsVisibleToTheNextGet() throws Exception {
+		mvc.perform(get("/ebooks/4"))
+				.andExpect(status().isOk());
+
+		mvc.perform(delete("/ebooks/4"))
+				.andExpect(status().isOk());
+
+		mvc.perform(get("/ebooks/4"))
+				.andExpect(status().isNotFound());
+	}
+}
@@ -0,0 +1,153 @@
+package io.datajek.spring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+class EbookDiscountBufferTest {
+
+	private final EbookRepository ebookRepo = mock(EbookRepository.class);
+
+	// every batch handed to the repository, in order
+	private final List<Map<Integer, Double>> batches = new ArrayList<>();
+
+	// ids the repository reports as missing
+	private List<Integer> missing = Collections.emptyList();
+
+	// runs inside the repository call, i.e. while a batch is being written
+	private Runnable duringWrite = () -> { };
+
+	private EbookDiscountBuffer buffer;
+
+	@BeforeEach
+	void setUp() {
+		when(ebookRepo.updateDiscounts(anyMap())).thenAnswer(invocation -> {
+			batches.add(new HashMap<>(invocation.<Map<Integer, Double>>getArgument(0)));
+			duringWrite.run();
+			return missing;
+		});
+		buffer = new EbookDiscountBuffer(ebookRepo, mock(PlatformTransactionManager.class), mock(EbookCache.class),
+				mock(EbookCatalogSnapshot.class), mock(EbookCatalogVersion.class), mock(EbookPriceHistory.class));
+	}
+
+	private static Map<Integer, Double> discounts(Object... idsAndValues) {
+		Map<Integer, Double> map = new HashMap<>();
+		for (int i = 0; i < idsAndValues.length; i += 2) {
+			map.put((Integer) idsAndValues[i], (Double) idsAndValues[i + 1]);
+		}
+		return map;
+	}
+
+	@Test
+	void onlyTheLatestValuePerIdIsWritten() {
+		buffer.put(1, 5.0);
+		buffer.put(1, 10.0);
+		buffer.put(2, 3.0);
+
+		assertEquals(Double.valueOf(10.0), buffer.pending(1));
+		buffer.flush();
+
+		assertEquals(Collections.singletonList(discounts(1, 10.0, 2, 3.0)), batches);
+		assertTrue(buffer.isEmpty());
+		assertEquals(3L, buffer.stats().get("buffered"));
+		assertEquals(2L, buffer.stats().get("written"));
+	}
+
+	@Test
+	void flushWithNothingPendingWritesNothing() {
+		buffer.flush();
+		buffer.flush(1);
+
+		assertTrue(batches.isEmpty());
+	}
+
+	@Test
+	void valueReplacedDuringAWriteStaysPendingForTheNextFlush() {
+		buffer.put(1, 5.0);
+		duringWrite = () -> {
+			duringWrite = () -> { };
+			buffer.put(1, 20.0);
+		};
+
+		buffer.flush();
+		assertEquals(Double.valueOf(20.0), buffer.pending(1));
+
+		buffer.flush();
+		assertEquals(Arrays.asList(discounts(1, 5.0), discounts(1, 20.0)), batches);
+		assertNull(buffer.pending(1));
+	}
+
+	@Test
+	void flushOfOneIdLeavesTheOthersPending() {
+		buffer.put(1, 5.0);
+		buffer.put(2, 6.0);
+
+		buffer.flush(1);
+
+		assertEquals(Collections.singletonList(discounts(1, 5.0)), batches);
+		assertNull(buffer.pending(1));
+		assertEquals(Double.valueOf(6.0), buffer.pending(2));
+	}
+
+	@Test
+	void failedCheckWritesNothing() {
+		buffer.put(1, 5.0);
+
+		assertThrows(EbookPreconditionFailedException.class, () -> buffer.flush(1, () -> {
+			throw new EbookPreconditionFailedException("Ebook 1 no longer matches");
+		}));
+
+		assertTrue(batches.isEmpty());
+		assertEquals(Double.valueOf(5.0), buffer.pending(1));
+	}
+
+	@Test
+	void checkRunsBeforeTheWrite() {
+		buffer.put(1, 5.0);
+		List<Integer> batchesSeenByCheck = new ArrayList<>();
+
+		Double written = buffer.flush(1, () -> batchesSeenByCheck.add(batches.size()));
+
+		assertEquals(Double.valueOf(5.0), written);
+		assertEquals(Collections.singletonList(0), batchesSeenByCheck);
+		assertEquals(1, batches.size());
+	}
+
+	@Test
+	void discardedValuesAreNeverWritten() {
+		buffer.put(1, 5.0);
+		buffer.put(2, 6.0);
+
+		buffer.discard(Collections.singletonList(1));
+		buffer.flush();
+
+		assertEquals(Collections.singletonList(discounts(2, 6.0)), batches);
+	}
+
+	@Test
+	void missingIdsAreDroppedAndCounted() {
+		missing = Collections.singletonList(2);
+		buffer.put(1, 5.0);
+		buffer.put(2, 6.0);
+
+		buffer.flush();
+
+		assertTrue(buffer.isEmpty());
+		assertEquals(1L, buffer.stats().get("written"));
+		assertEquals(1L, buffer.stats().get("dropped"));
+	}
+}
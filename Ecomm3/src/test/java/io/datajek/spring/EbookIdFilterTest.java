@@ -0,0 +1,88 @@
+package io.datajek.spring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+class EbookIdFilterTest {
+
+	// The startup load finds an empty table; ids are added by the tests
+	private static EbookIdFilter filter() {
+		JdbcTemplate emptyTable = new JdbcTemplate() {
+			@Override
+			public void query(String sql, RowCallbackHandler handler) {
+			}
+		};
+		return new EbookIdFilter(emptyTable, 1000, 0.01);
+	}
+
+	@Test
+	void everyIdMightExistUntilLoaded() {
+		EbookIdFilter filter = filter();
+
+		assertTrue(filter.mightExist(42));
+		filter.remove(42);
+		assertEquals(false, filter.stats().get("ready"));
+		assertEquals(0L, filter.stats().get("ids"));
+	}
+
+	@Test
+	void addedIdsPassAndOthersAreRejected() {
+		EbookIdFilter filter = filter();
+		filter.load();
+
+		assertFalse(filter.mightExist(7));
+		filter.add(7);
+		assertTrue(filter.mightExist(7));
+		assertEquals(1L, filter.stats().get("ids"));
+		assertEquals(1L, filter.stats().get("rejected"));
+		assertEquals(1L, filter.stats().get("passed"));
+	}
+
+	@Test
+	void removeUndoesOneAdd() {
+		EbookIdFilter filter = filter();
+		filter.load();
+
+		filter.add(7);
+		filter.add(7);
+		filter.remove(7);
+		// counted twice, so one remove leaves it in
+		assertTrue(filter.mightExist(7));
+		filter.remove(7);
+		assertFalse(filter.mightExist(7));
+		assertEquals(0L, filter.stats().get("ids"));
+	}
+
+	@Test
+	void removingSomeIdsNeverHidesTheOthers() {
+		EbookIdFilter filter = filter();
+		filter.load();
+
+		for (int id = 1; id <= 1000; id++) {
+			filter.add(id);
+		}
+		for (int id = 2; id <= 1000; id += 2) {
+			filter.remove(id);
+		}
+		for (int id = 1; id <= 1000; id += 2) {
+			assertTrue(filter.mightExist(id), "false negative for " + id);
+		}
+		assertEquals(500L, filter.stats().get("ids"));
+	}
+
+	@Test
+	void removeOfAnIdNeverAddedDoesNotGoBelowZero() {
+		EbookIdFilter filter = filter();
+		filter.load();
+
+		filter.add(1);
+		filter.remove(2);
+		filter.remove(2);
+		assertTrue(filter.mightExist(1));
+	}
+}
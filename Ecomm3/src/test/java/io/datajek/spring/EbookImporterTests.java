@@ -0,0 +1,66 @@
+package io.datajek.spring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doAnswer;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// The importer must only report the rows of its own batch, not rows other requests insert meanwhile.
+// The spy makes this a context of its own, so it gets a database of its own too.
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:importer")
+class EbookImporterTests {
+
+	@Autowired
+	private EbookImporter importer;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private EbookIdFilter idFilter;
+
+	@Autowired
+	private EbookSearchIndex searchIndex;
+
+	@SpyBean
+	private EbookPriceHistory priceHistory;
+
+	@Test
+	void concurrentInsertIsNotTakenForAnImportedRow() throws Exception {
+		// another writer's row lands right after the batch, with a higher id, before the hooks run
+		doAnswer(invocation -> {
+			jdbcTemplate.update("insert into Ebook (title, publisher, price, publish_date) values (?, ?, ?, ?)",
+					"Zanzibar Interloper", "Someone Else", 9.99, java.sql.Date.valueOf("2020-01-01"));
+			return invocation.callRealMethod();
+		}).when(priceHistory).record(anyList());
+		long idsBefore = (Long) idFilter.stats().get("ids");
+
+		String body = "[{\"title\": \"Quokka One\", \"author\": \"Importer\", \"price\": 10, \"publishDate\": \"2021-01-01\"},"
+				+ " {\"title\": \"Quokka Two\", \"author\": \"Importer\", \"price\": 12, \"publishDate\": \"2021-02-01\"}]";
+		EbookImportResult result = importer.importEbooks(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)));
+
+		assertEquals(2, result.getImported());
+		Integer foreignId = jdbcTemplate.queryForObject("select id from Ebook where title = 'Zanzibar Interloper'", Integer.class);
+		assertNotNull(foreignId);
+		assertEquals(0, jdbcTemplate.queryForObject(
+				"select count(*) from ebook_price_history where ebook_id = ?", Integer.class, foreignId).intValue());
+		List<Integer> imported = jdbcTemplate.queryForList("select id from Ebook where title like 'Quokka%'", Integer.class);
+		for (Integer id : imported) {
+			assertEquals(1, jdbcTemplate.queryForObject(
+					"select count(*) from ebook_price_history where ebook_id = ?", Integer.class, id).intValue());
+		}
+		assertEquals(idsBefore + 2, idFilter.stats().get("ids"));
+		assertTrue(searchIndex.search("zanzibar", 10).isEmpty());
+		assertEquals(2, searchIndex.search("quokka", 10).size());
+	}
+}
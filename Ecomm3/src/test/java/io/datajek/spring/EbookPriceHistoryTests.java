@@ -0,0 +1,101 @@
+package io.datajek.spring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+// Each test writes history for ebook ids of its own; a batch of 2 makes larger requests span statements
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:price-history",
+		"ebook.price-history.as-of-batch=2"})
+class EbookPriceHistoryTests {
+
+	@Autowired
+	private EbookPriceHistory priceHistory;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	private void entry(int ebookId, String effectiveFrom, double price) {
+		jdbcTemplate.update("insert into ebook_price_history (ebook_id, effective_from, price, discount) values (?, ?, ?, 0)",
+				ebookId, Timestamp.valueOf(effectiveFrom), price);
+	}
+
+	private static EbookPriceQuery query(int id, String at) {
+		EbookPriceQuery query = new EbookPriceQuery();
+		query.setId(id);
+		query.setAt(Timestamp.valueOf(at));
+		return query;
+	}
+
+	private EbookPricePoint asOf(int id, String at) {
+		List<EbookPricePoint> points = priceHistory.asOf(Arrays.asList(query(id, at)));
+		assertEquals(1, points.size());
+		return points.get(0);
+	}
+
+	@Test
+	void instantBeforeTheFirstEntryHasNoPrice() {
+		entry(101, "2020-01-01 00:00:00", 10.0);
+
+		EbookPricePoint point = asOf(101, "2019-12-31 23:59:59");
+
+		assertEquals(101, point.getId());
+		assertNull(point.getPrice());
+		assertNull(point.getDiscount());
+		assertNull(point.getEffectiveFrom());
+	}
+
+	@Test
+	void instantExactlyAtEffectiveFromTakesThatEntry() {
+		entry(102, "2020-01-01 00:00:00", 10.0);
+		entry(102, "2020-06-01 00:00:00", 12.0);
+
+		assertEquals(Double.valueOf(10.0), asOf(102, "2020-05-31 23:59:59.999").getPrice());
+		EbookPricePoint point = asOf(102, "2020-06-01 00:00:00");
+		assertEquals(Double.valueOf(12.0), point.getPrice());
+		assertEquals(Timestamp.valueOf("2020-06-01 00:00:00"), point.getEffectiveFrom());
+	}
+
+	@Test
+	void entriesWithTheSameTimestampResolveToTheLaterWrite() {
+		entry(103, "2020-03-01 12:00:00", 20.0);
+		entry(103, "2020-03-01 12:00:00", 21.0);
+		entry(103, "2020-03-01 12:00:00", 19.5);
+
+		assertEquals(Double.valueOf(19.5), asOf(103, "2020-03-01 12:00:00").getPrice());
+		assertEquals(Double.valueOf(19.5), asOf(103, "2021-01-01 00:00:00").getPrice());
+	}
+
+	@Test
+	void batchReturnsOnePointPerQueryInRequestOrder() {
+		entry(104, "2020-01-01 00:00:00", 30.0);
+		entry(104, "2020-07-01 00:00:00", 33.0);
+		entry(105, "2020-04-01 00:00:00", 40.0);
+
+		List<EbookPricePoint> points = priceHistory.asOf(Arrays.asList(
+				query(104, "2020-08-01 00:00:00"),
+				query(105, "2020-04-01 00:00:00"),
+				query(106, "2020-04-01 00:00:00"),
+				query(104, "2020-02-01 00:00:00"),
+				query(105, "2020-03-31 00:00:00")));
+
+		List<Integer> ids = new ArrayList<>();
+		List<Double> prices = new ArrayList<>();
+		for (EbookPricePoint point : points) {
+			ids.add(point.getId());
+			prices.add(point.getPrice());
+		}
+		assertEquals(Arrays.asList(104, 105, 106, 104, 105), ids);
+		assertEquals(Arrays.asList(33.0, 40.0, null, 30.0, null), prices);
+		assertEquals(Timestamp.valueOf("2020-02-01 00:00:00"), points.get(3).getAt());
+	}
+}
@@ -0,0 +1,119 @@
+package io.datajek.spring;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.concurrent.TimeUnit;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+// Catalog ETags starting with "s come from the snapshot; "c means the list was loaded from the database
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:snapshot",
+		"ebook.snapshot.enabled=true",
+		"ebook.snapshot.refresh-delay-ms=10"})
+@AutoConfigureMockMvc
+class EbookSnapshotTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	// The catalog ETag once the snapshot serves GET /ebooks again with a generation other than before
+	private String awaitRebuiltCatalog(String before) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while (true) {
+			String etag = mvc.perform(get("/ebooks")).andReturn().getResponse().getHeader("ETag");
+			if (etag.startsWith("\"s") && !etag.equals(before)) {
+				return etag;
+			}
+			assertTrue(System.nanoTime() < deadline, "snapshot was not rebuilt, last ETag " + etag);
+			Thread.sleep(5);
+		}
+	}
+
+	private String catalogETag() throws Exception {
+		return awaitRebuiltCatalog(null);
+	}
+
+	@Test
+	void readsAreServedAsEncodedJson() throws Exception {
+		String etag = catalogETag();
+
+		mvc.perform(get("/ebooks"))
+				.andExpect(status().isOk())
+				.andExpect(header().string("ETag", etag))
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$[1].title").value("Effective Java"));
+		mvc.perform(get("/ebooks").header("If-None-Match", etag))
+				.andExpect(status().isNotModified());
+		mvc.perform(get("/ebooks/2"))
+				.andExpect(status().isOk())
+				.andExpect(content().contentType(MediaType.APPLICATION_JSON))
+				.andExpect(jsonPath("$.title").value("Effective Java"));
+	}
+
+	@Test
+	void putIsVisibleAtOnceAndThenRebuiltIntoTheSnapshot() throws Exception {
+		String before = catalogETag();
+
+		mvc.perform(put("/ebooks/1")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"title\": \"Clean Code, Snapshot ed.\", \"author\": \"Robert C. Martin\", "
+						+ "\"price\": 41.0, \"publishDate\": \"2008-08-01\", \"discount\": 0}"))
+				.andExpect(status().isOk());
+		// before the rebuild the changed ebook is loaded from the database, never the old bytes
+		mvc.perform(get("/ebooks/1"))
+				.andExpect(jsonPath("$.title").value("Clean Code, Snapshot ed."));
+
+		String after = awaitRebuiltCatalog(before);
+		mvc.perform(get("/ebooks"))
+				.andExpect(header().string("ETag", after))
+				.andExpect(jsonPath("$[0].title").value("Clean Code, Snapshot ed."))
+				.andExpect(jsonPath("$[0].price").value(41.0));
+		mvc.perform(get("/ebooks/1"))
+				.andExpect(jsonPath("$.title").value("Clean Code, Snapshot ed."));
+	}
+
+	@Test
+	void patchIsRebuiltIntoTheSnapshot() throws Exception {
+		String before = catalogETag();
+
+		mvc.perform(patch("/ebooks/3")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("{\"price\": 52.5}"))
+				.andExpect(status().isOk());
+		mvc.perform(get("/ebooks/3"))
+				.andExpect(jsonPath("$.price").value(52.5));
+
+		awaitRebuiltCatalog(before);
+		mvc.perform(get("/ebooks"))
+				.andExpect(jsonPath("$[2].price").value(52.5));
+	}
+
+	@Test
+	void deleteIsRebuiltIntoTheSnapshot() throws Exception {
+		String before = catalogETag();
+
+		mvc.perform(delete("/ebooks/4"))
+				.andExpect(status().isOk());
+		mvc.perform(get("/ebooks/4"))
+				.andExpect(status().isNotFound());
+
+		awaitRebuiltCatalog(before);
+		mvc.perform(get("/ebooks"))
+				.andExpect(jsonPath("$[?(@.id == 4)]").isEmpty());
+		mvc.perform(get("/ebooks/4"))
+				.andExpect(status().isNotFound());
+	}
+}
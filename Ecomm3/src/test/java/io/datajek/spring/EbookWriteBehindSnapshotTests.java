@@ -0,0 +1,53 @@
+package io.datajek.spring;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+// Flushes and snapshot refreshes only happen when a test asks, so reads land between the two
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:write-behind-snapshot",
+		"ebook.snapshot.enabled=true",
+		"ebook.snapshot.refresh-delay-ms=600000",
+		"ebook.discount.write-behind=true",
+		"ebook.discount.flush-ms=600000"})
+@AutoConfigureMockMvc
+class EbookWriteBehindSnapshotTests {
+
+	@Autowired
+	private MockMvc mvc;
+
+	@Autowired
+	private EbookDiscountBuffer discountBuffer;
+
+	@Test
+	void flushedDiscountIsStillVisibleBeforeTheSnapshotIsRebuilt() throws Exception {
+		mvc.perform(get("/ebooks/3"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.discount").value(0.0));
+
+		mvc.perform(patch("/ebooks/3/discount")
+				.contentType(MediaType.APPLICATION_JSON)
+				.content("25"))
+				.andExpect(status().isOk());
+		mvc.perform(get("/ebooks/3"))
+				.andExpect(jsonPath("$.discount").value(25.0));
+
+		discountBuffer.flush();
+
+		mvc.perform(get("/ebooks/3"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$.discount").value(25.0));
+		mvc.perform(get("/ebooks"))
+				.andExpect(status().isOk())
+				.andExpect(jsonPath("$[2].discount").value(25.0));
+	}
+}
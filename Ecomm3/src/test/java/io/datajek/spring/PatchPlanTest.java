@@ -0,0 +1,91 @@
+package io.datajek.spring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.sql.Date;
+import java.util.HashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+class PatchPlanTest {
+
+	private final PatchPlan<Ebook> plan = PatchPlan.of(Ebook.class, "id", "version");
+
+	private static Ebook ebook() {
+		return new Ebook(7, "Clean Code", "Robert C. Martin", 39.99, Date.valueOf("2008-08-01"), 0);
+	}
+
+	@Test
+	void mapsEachKeyToItsSetter() {
+		Map<String, Object> patch = new HashMap<>();
+		patch.put("title", "Refactoring");
+		patch.put("author", "Martin Fowler");
+		patch.put("price", 47.5);
+		patch.put("discount", 10);
+		patch.put("publishDate", "1999-07-08");
+
+		Ebook ebook = plan.apply(ebook(), patch);
+
+		assertEquals("Refactoring", ebook.getTitle());
+		assertEquals("Martin Fowler", ebook.getAuthor());
+		assertEquals(47.5, ebook.getPrice());
+		assertEquals(10.0, ebook.getDiscount());
+		assertEquals(Date.valueOf("1999-07-08"), ebook.getPublishDate());
+		assertEquals(7, ebook.getId());
+	}
+
+	@Test
+	void leavesKeysOutsideThePatchAlone() {
+		Map<String, Object> patch = new HashMap<>();
+		patch.put("price", 20);
+
+		Ebook ebook = plan.apply(ebook(), patch);
+
+		assertEquals(20.0, ebook.getPrice());
+		assertEquals("Clean Code", ebook.getTitle());
+		assertEquals(Date.valueOf("2008-08-01"), ebook.getPublishDate());
+	}
+
+	@Test
+	void convertsStringsAndEpochMillis() {
+		Map<String, Object> patch = new HashMap<>();
+		patch.put("price", "12.25");
+		patch.put("publishDate", Date.valueOf("2020-02-29").getTime());
+
+		Ebook ebook = plan.apply(ebook(), patch);
+
+		assertEquals(12.25, ebook.getPrice());
+		assertEquals(Date.valueOf("2020-02-29"), ebook.getPublishDate());
+	}
+
+	@Test
+	void readOnlyAndUnknownKeysAreNotPatchable() {
+		assertFalse(plan.isPatchable("id"));
+		assertFalse(plan.isPatchable("version"));
+		assertFalse(plan.isPatchable("isbn"));
+		assertTrue(plan.isPatchable("title"));
+
+		Map<String, Object> patch = new HashMap<>();
+		patch.put("version", 3);
+		assertThrows(IllegalArgumentException.class, () -> plan.apply(ebook(), patch));
+	}
+
+	@Test
+	void validateRejectsBadValuesWithoutTouchingAnEbook() {
+		Map<String, Object> patch = new HashMap<>();
+		patch.put("price", "free");
+
+		assertThrows(IllegalArgumentException.class, () -> plan.validate(patch));
+	}
+
+	@Test
+	void nullIntoAPrimitiveIsRejected() {
+		Map<String, Object> patch = new HashMap<>();
+		patch.put("price", null);
+
+		assertThrows(IllegalArgumentException.class, () -> plan.apply(ebook(), patch));
+	}
+}
@@ -0,0 +1,125 @@
+package io.datajek.spring;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+class SingleFlightTest {
+
+	private final ExecutorService callers = Executors.newCachedThreadPool();
+
+	@AfterEach
+	void shutdown() {
+		callers.shutdownNow();
+	}
+
+	// Blocks until the given number of callers has joined the load in flight
+	private static void awaitCollapsed(SingleFlight<?, ?> flight, long count) throws InterruptedException {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+		while ((Long) flight.stats().get("collapsed") < count) {
+			if (System.nanoTime() > deadline) {
+				throw new AssertionError("callers did not join the load: " + flight.stats());
+			}
+			Thread.sleep(1);
+		}
+	}
+
+	@Test
+	void concurrentCallersShareOneLoad() throws Exception {
+		SingleFlight<Integer, String> flight = new SingleFlight<>(5000);
+		AtomicInteger loads = new AtomicInteger();
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> first = callers.submit(() -> flight.execute(1, id -> {
+			loads.incrementAndGet();
+			started.countDown();
+			await(release);
+			return "ebook " + id;
+		}));
+		started.await();
+		Future<String> second = callers.submit(() -> flight.execute(1, id -> "loaded twice"));
+		Future<String> third = callers.submit(() -> flight.execute(1, id -> "loaded twice"));
+		awaitCollapsed(flight, 2);
+		release.countDown();
+
+		assertEquals("ebook 1", first.get());
+		assertEquals("ebook 1", second.get());
+		assertEquals("ebook 1", third.get());
+		assertEquals(1, loads.get());
+		assertEquals(0, flight.stats().get("inFlight"));
+	}
+
+	@Test
+	void differentKeysLoadIndependently() throws Exception {
+		SingleFlight<Integer, String> flight = new SingleFlight<>(5000);
+
+		assertEquals("1", flight.execute(1, String::valueOf));
+		assertEquals("2", flight.execute(2, String::valueOf));
+		// nothing is kept after a load
+		assertEquals("again", flight.execute(1, id -> "again"));
+		assertEquals(3L, flight.stats().get("loads"));
+	}
+
+	@Test
+	void waitersSeeTheLoadersException() throws Exception {
+		SingleFlight<Integer, String> flight = new SingleFlight<>(5000);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		EbookNotFoundException missing = new EbookNotFoundException("Ebook not found with id: 9");
+
+		Future<String> first = callers.submit(() -> flight.execute(9, id -> {
+			started.countDown();
+			await(release);
+			throw missing;
+		}));
+		started.await();
+		Future<String> second = callers.submit(() -> flight.execute(9, id -> "loaded twice"));
+		awaitCollapsed(flight, 1);
+		release.countDown();
+
+		assertSame(missing, assertThrows(ExecutionException.class, first::get).getCause());
+		assertSame(missing, assertThrows(ExecutionException.class, second::get).getCause());
+	}
+
+	@Test
+	void waiterGivesUpAfterTheTimeout() throws Exception {
+		SingleFlight<Integer, String> flight = new SingleFlight<>(20);
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		Future<String> first = callers.submit(() -> flight.execute(3, id -> {
+			started.countDown();
+			await(release);
+			return "slow";
+		}));
+		started.await();
+		try {
+			assertThrows(TimeoutException.class, () -> flight.execute(3, id -> "loaded twice"));
+			assertEquals(1L, flight.stats().get("timeouts"));
+		} finally {
+			release.countDown();
+		}
+		assertEquals("slow", first.get());
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(ex);
+		}
+	}
+}